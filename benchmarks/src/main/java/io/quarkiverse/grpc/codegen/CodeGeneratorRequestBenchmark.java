@@ -0,0 +1,82 @@
+package io.quarkiverse.grpc.codegen;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.compiler.PluginProtos;
+
+import io.quarkus.bootstrap.prebuild.CodeGenException;
+
+/**
+ * Size and parse time of the CodeGeneratorRequest handed to the generators.
+ * <ul>
+ * <li>{@code full}: every file, imports included, with its whole source info, in both {@code proto_file} and
+ * {@code source_file_descriptors}</li>
+ * <li>{@code slim}: the request built by {@link GrpcZeroCodeGen#resolveDependencies}</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodeGeneratorRequestBenchmark {
+
+    @Param({ "SMALL", "LARGE" })
+    public Corpus corpus;
+
+    @Param({ "full", "slim" })
+    public String layout;
+
+    private byte[] request;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class RequestSize {
+        public long requestBytes;
+    }
+
+    @Setup
+    public void setup() throws CodeGenException, IOException {
+        try (FileSystem fs = corpus.newFileSystem()) {
+            PluginProtos.CodeGeneratorRequest slim = corpus.codeGeneratorRequest(fs.getPath("."));
+            if ("slim".equals(layout)) {
+                request = slim.toByteArray();
+            } else {
+                PluginProtos.CodeGeneratorRequest.Builder full = slim.toBuilder()
+                        .clearProtoFile()
+                        .clearSourceFileDescriptors();
+                for (var file : slim.getProtoFileList()) {
+                    var withSourceInfo = GrpcZeroCodeGen.getDescriptor(fs.getPath("."), List.of(file.getName()),
+                            true, new GrpcZeroReport()).getFile(0);
+                    full.addProtoFile(withSourceInfo);
+                    full.addSourceFileDescriptors(withSourceInfo);
+                }
+                request = full.build().toByteArray();
+            }
+        }
+    }
+
+    @Benchmark
+    public PluginProtos.CodeGeneratorRequest parse(RequestSize size) throws InvalidProtocolBufferException {
+        size.requestBytes = request.length;
+        return PluginProtos.CodeGeneratorRequest.parseFrom(request);
+    }
+}
@@ -0,0 +1,91 @@
+package io.quarkiverse.grpc.codegen;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import com.google.protobuf.DescriptorProtos;
+import com.google.protobuf.compiler.PluginProtos;
+
+import io.quarkus.bootstrap.prebuild.CodeGenException;
+import io.roastedroot.zerofs.Configuration;
+import io.roastedroot.zerofs.ZeroFs;
+
+/**
+ * The checked-in proto inputs of the benchmarks, found under {@code src/main/resources/corpus}.
+ */
+public enum Corpus {
+    /**
+     * The classic helloworld example: one service, two messages.
+     */
+    SMALL("small", List.of("helloworld.proto"), List.of("helloworld.proto")),
+    /**
+     * 300 messages and 10 services with 100 methods over two files, one importing the other.
+     */
+    LARGE("large", List.of("common.proto", "api.proto"), List.of("api.proto"));
+
+    private final String directory;
+    private final List<String> files;
+    private final List<String> filesToGenerate;
+
+    Corpus(String directory, List<String> files, List<String> filesToGenerate) {
+        this.directory = directory;
+        this.files = files;
+        this.filesToGenerate = filesToGenerate;
+    }
+
+    public List<String> filesToGenerate() {
+        return filesToGenerate;
+    }
+
+    /**
+     * Copies the corpus into {@code target}, which can be a directory of the default file system or of ZeroFs.
+     */
+    public void copyTo(Path target) {
+        try {
+            Files.createDirectories(target);
+            for (String file : files) {
+                String resource = "corpus/" + directory + "/" + file;
+                try (InputStream is = Corpus.class.getClassLoader().getResourceAsStream(resource)) {
+                    if (is == null) {
+                        throw new IllegalStateException("Missing benchmark resource " + resource);
+                    }
+                    Files.copy(is, target.resolve(file), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Creates an in-memory file system holding the corpus, laid out the way {@link GrpcZeroCodeGen} prepares it.
+     */
+    public FileSystem newFileSystem() {
+        FileSystem fs = ZeroFs.newFileSystem(Configuration.unix().toBuilder().setAttributeViews("unix").build());
+        copyTo(fs.getPath("."));
+        return fs;
+    }
+
+    /**
+     * Builds the same {@link PluginProtos.CodeGeneratorRequest} that {@link GrpcZeroCodeGen} would pass to the
+     * generators.
+     */
+    public PluginProtos.CodeGeneratorRequest codeGeneratorRequest(Path workdir) throws CodeGenException {
+        GrpcZeroReport report = new GrpcZeroReport();
+        DescriptorProtos.FileDescriptorSet.Builder descriptorSetBuilder = DescriptorProtos.FileDescriptorSet.newBuilder();
+        PluginProtos.CodeGeneratorRequest.Builder requestBuilder = PluginProtos.CodeGeneratorRequest.newBuilder();
+        for (String file : filesToGenerate) {
+            descriptorSetBuilder.addAllFile(GrpcZeroCodeGen.getDescriptor(workdir, List.of(file), true, report)
+                    .getFileList());
+            requestBuilder.addFileToGenerate(file);
+        }
+        GrpcZeroCodeGen.resolveDependencies(workdir, descriptorSetBuilder.build(), requestBuilder, report);
+        return requestBuilder.build();
+    }
+}
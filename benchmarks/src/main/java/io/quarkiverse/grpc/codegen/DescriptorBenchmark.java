@@ -0,0 +1,54 @@
+package io.quarkiverse.grpc.codegen;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.protobuf.DescriptorProtos;
+
+import io.quarkus.bootstrap.prebuild.CodeGenException;
+
+/**
+ * Cost of a single {@code descriptors} run of protoc-wrapper, i.e. of parsing the corpus into a FileDescriptorSet.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DescriptorBenchmark {
+
+    @Param({ "SMALL", "LARGE" })
+    public Corpus corpus;
+
+    private FileSystem fs;
+
+    @Setup
+    public void setup() {
+        fs = corpus.newFileSystem();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        fs.close();
+    }
+
+    @Benchmark
+    public DescriptorProtos.FileDescriptorSet getDescriptor() throws CodeGenException {
+        return GrpcZeroCodeGen.getDescriptor(fs.getPath("."), corpus.filesToGenerate(), new GrpcZeroReport());
+    }
+}
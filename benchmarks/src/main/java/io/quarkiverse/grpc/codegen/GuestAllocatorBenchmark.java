@@ -0,0 +1,139 @@
+package io.quarkiverse.grpc.codegen;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dylibso.chicory.runtime.ByteArrayMemory;
+import com.dylibso.chicory.runtime.ImportMemory;
+import com.dylibso.chicory.runtime.ImportValues;
+import com.dylibso.chicory.runtime.Instance;
+import com.dylibso.chicory.wasi.WasiExitException;
+import com.dylibso.chicory.wasi.WasiOptions;
+import com.dylibso.chicory.wasi.WasiPreview1;
+import com.dylibso.chicory.wasm.Parser;
+import com.dylibso.chicory.wasm.WasmModule;
+import com.dylibso.chicory.wasm.types.MemoryLimits;
+import com.dylibso.chicory.wasm.types.OpCode;
+
+import io.quarkus.bootstrap.prebuild.CodeGenException;
+
+/**
+ * Compares protoc-wrapper builds, e.g. the dlmalloc and the bump allocator ones, by the work done inside the guest:
+ * executed wasm instructions, {@code memory.grow} calls and final linear memory size.
+ * <p>
+ * Runs in the Chicory interpreter, so any wasm file can be compared without compiling it to bytecode first:
+ * {@code -p wasm=release,wasm/protoc-wrapper-bump-alloc.wasm}, where {@code release} is the module embedded in the
+ * codegen jar. The wall time is only meaningful relative to the other variants.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GuestAllocatorBenchmark {
+
+    @Param({ "release" })
+    public String wasm;
+
+    @Param({ "SMALL", "LARGE" })
+    public Corpus corpus;
+
+    @Param({ "descriptors", "java" })
+    public String command;
+
+    private WasmModule module;
+    private FileSystem fs;
+    private byte[] request;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class GuestCounters {
+        public long instructions;
+        public long memoryGrows;
+        public long memoryPages;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            instructions = 0;
+            memoryGrows = 0;
+            memoryPages = 0;
+        }
+    }
+
+    @Setup
+    public void setup() throws CodeGenException {
+        module = "release".equals(wasm) ? ProtocWrapper.load() : Parser.parse(Path.of(wasm));
+        fs = corpus.newFileSystem();
+        request = corpus.codeGeneratorRequest(fs.getPath(".")).toByteArray();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        fs.close();
+    }
+
+    @Benchmark
+    public int run(GuestCounters counters) {
+        Path workdir = fs.getPath(".");
+        List<String> arguments = new ArrayList<>();
+        arguments.add("protoc-wrapper");
+        arguments.add(command);
+        if ("descriptors".equals(command)) {
+            arguments.addAll(corpus.filesToGenerate());
+        }
+        ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        var wasiOpts = WasiOptions.builder()
+                .withStdin(new ByteArrayInputStream(request))
+                .withStdout(stdout)
+                .withStderr(new ByteArrayOutputStream())
+                .withArguments(arguments)
+                .withDirectory(workdir.toString(), workdir)
+                .build();
+        // shared for the pthread build only
+        var memory = new ByteArrayMemory(new MemoryLimits(10, MemoryLimits.MAX_PAGES,
+                CodegenEngine.importedMemory(module).shared()));
+        try (var wasi = WasiPreview1.builder().withOptions(wasiOpts).build()) {
+            var imports = ImportValues.builder()
+                    .addFunction(wasi.toHostFunctions())
+                    .addMemory(new ImportMemory("env", "memory", memory))
+                    .build();
+            Instance.builder(module)
+                    .withImportValues(imports)
+                    .withUnsafeExecutionListener((instruction, stack) -> {
+                        counters.instructions++;
+                        if (instruction.opcode() == OpCode.MEMORY_GROW) {
+                            counters.memoryGrows++;
+                        }
+                    })
+                    .build();
+        } catch (WasiExitException exit) {
+            if (exit.exitCode() != 0) {
+                throw new IllegalStateException("protoc-wrapper " + command + " exited with " + exit.exitCode());
+            }
+        }
+        counters.memoryPages = Math.max(counters.memoryPages, memory.pages());
+        return stdout.size();
+    }
+}
@@ -0,0 +1,58 @@
+package io.quarkiverse.grpc.codegen;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.protobuf.compiler.PluginProtos;
+
+import io.quarkus.bootstrap.prebuild.CodeGenException;
+import io.quarkus.grpc.protoc.plugin.MutinyGrpcGenerator;
+
+/**
+ * Cost of the pure Java Mutiny generator over a prebuilt CodeGeneratorRequest.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MutinyGeneratorBenchmark {
+
+    @Param({ "SMALL", "LARGE" })
+    public Corpus corpus;
+
+    private FileSystem fs;
+    private PluginProtos.CodeGeneratorRequest request;
+
+    @Setup
+    public void setup() throws CodeGenException {
+        fs = corpus.newFileSystem();
+        request = corpus.codeGeneratorRequest(fs.getPath("."));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        fs.close();
+    }
+
+    @Benchmark
+    public List<PluginProtos.CodeGeneratorResponse.File> generateFiles() {
+        return new MutinyGrpcGenerator().generateFiles(request);
+    }
+}
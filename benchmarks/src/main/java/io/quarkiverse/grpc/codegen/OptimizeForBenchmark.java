@@ -0,0 +1,157 @@
+package io.quarkiverse.grpc.codegen;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import com.google.protobuf.compiler.PluginProtos;
+
+import io.roastedroot.zerofs.Configuration;
+import io.roastedroot.zerofs.ZeroFs;
+
+/**
+ * Parse throughput of a message generated from a proto declaring {@code optimize_for = CODE_SIZE}, as declared and
+ * with the {@code SPEED} override of {@link OptimizeForOverride}. The generated sources are compiled and loaded in
+ * the setup, so this needs a JDK.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OptimizeForBenchmark {
+
+    private static final String PROTO = """
+            syntax = "proto3";
+            package bench;
+            option java_package = "io.quarkiverse.grpc.codegen.bench";
+            option optimize_for = CODE_SIZE;
+            message Item {
+              int64 id = 1;
+              string name = 2;
+              double price = 3;
+              repeated string tags = 4;
+            }
+            message Order {
+              string id = 1;
+              int64 created = 2;
+              repeated Item items = 3;
+              map<string, string> attributes = 4;
+              bool paid = 5;
+            }
+            """;
+
+    @Param({ "CODE_SIZE", "SPEED" })
+    public String optimizeFor;
+
+    private Parser<?> parser;
+    private byte[] payload;
+
+    @Setup
+    public void setup() throws Exception {
+        PluginProtos.CodeGeneratorResponse response;
+        try (FileSystem fs = ZeroFs.newFileSystem(Configuration.unix().toBuilder().setAttributeViews("unix").build())) {
+            Path workdir = fs.getPath(".");
+            Files.writeString(workdir.resolve("bench.proto"), PROTO);
+            GrpcZeroReport report = new GrpcZeroReport();
+            PluginProtos.CodeGeneratorRequest.Builder request = PluginProtos.CodeGeneratorRequest.newBuilder()
+                    .addFileToGenerate("bench.proto");
+            GrpcZeroCodeGen.resolveDependencies(workdir,
+                    GrpcZeroCodeGen.getDescriptor(workdir, List.of("bench.proto"), true, report), request, report);
+            PluginProtos.CodeGeneratorRequest generatorRequest = request.build();
+            if ("SPEED".equals(optimizeFor)) {
+                generatorRequest = new OptimizeForOverride(List.of(), List.of("bench"), Map.of())
+                        .apply(generatorRequest);
+            }
+            response = GrpcZeroCodeGen.runNativePlugin("java", generatorRequest, workdir, report);
+        }
+
+        Class<?> order = compile(response).loadClass("io.quarkiverse.grpc.codegen.bench.Bench$Order");
+        parser = (Parser<?>) order.getMethod("parser").invoke(null);
+        payload = order((Message) order.getMethod("getDefaultInstance").invoke(null)).toByteArray();
+    }
+
+    @Benchmark
+    public Object parse() throws InvalidProtocolBufferException {
+        return parser.parseFrom(payload);
+    }
+
+    private static ClassLoader compile(PluginProtos.CodeGeneratorResponse response) throws IOException {
+        Path sources = Files.createTempDirectory("optimize-for-sources");
+        Path classes = Files.createTempDirectory("optimize-for-classes");
+        List<String> arguments = new ArrayList<>(List.of("-d", classes.toString(),
+                "-classpath", System.getProperty("java.class.path"), "-nowarn"));
+        for (PluginProtos.CodeGeneratorResponse.File file : response.getFileList()) {
+            Path source = sources.resolve(file.getName());
+            Files.createDirectories(source.getParent());
+            Files.writeString(source, file.getContent());
+            arguments.add(source.toString());
+        }
+        JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+        if (javac == null || javac.run(null, null, null, arguments.toArray(String[]::new)) != 0) {
+            throw new IllegalStateException("Failed to compile the generated sources in " + sources);
+        }
+        try (Stream<Path> generated = Files.walk(sources)) {
+            generated.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+        return new URLClassLoader(new URL[] { classes.toUri().toURL() }, OptimizeForBenchmark.class.getClassLoader());
+    }
+
+    /**
+     * An order of 20 items, filled through the reflection API so that both variants get the same bytes.
+     */
+    private static Message order(Message defaultInstance) {
+        Message.Builder order = defaultInstance.newBuilderForType();
+        Descriptors.Descriptor type = order.getDescriptorForType();
+        order.setField(type.findFieldByName("id"), "order-42");
+        order.setField(type.findFieldByName("created"), 1_700_000_000_000L);
+        order.setField(type.findFieldByName("paid"), true);
+        Descriptors.FieldDescriptor items = type.findFieldByName("items");
+        for (int i = 0; i < 20; i++) {
+            Message.Builder item = order.newBuilderForField(items);
+            Descriptors.Descriptor itemType = item.getDescriptorForType();
+            item.setField(itemType.findFieldByName("id"), (long) i);
+            item.setField(itemType.findFieldByName("name"), "item-" + i);
+            item.setField(itemType.findFieldByName("price"), i * 9.99);
+            item.addRepeatedField(itemType.findFieldByName("tags"), "tag-" + i % 3);
+            item.addRepeatedField(itemType.findFieldByName("tags"), "tag-" + i % 5);
+            order.addRepeatedField(items, item.build());
+        }
+        Descriptors.FieldDescriptor attributes = type.findFieldByName("attributes");
+        for (int i = 0; i < 5; i++) {
+            Message.Builder entry = order.newBuilderForField(attributes);
+            entry.setField(entry.getDescriptorForType().findFieldByName("key"), "key-" + i);
+            entry.setField(entry.getDescriptorForType().findFieldByName("value"), "value-" + i);
+            order.addRepeatedField(attributes, entry.build());
+        }
+        return order.build();
+    }
+}
@@ -0,0 +1,86 @@
+package io.quarkiverse.grpc.codegen;
+
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.protobuf.compiler.PluginProtos;
+
+import io.quarkus.bootstrap.prebuild.CodeGenException;
+import io.quarkus.grpc.protoc.plugin.MutinyGrpcGenerator;
+
+/**
+ * Cost of {@link GrpcZeroPostProcessing} over the sources generated from the corpus, rewritten from scratch before
+ * each invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PostProcessingBenchmark {
+
+    @Param({ "SMALL", "LARGE" })
+    public Corpus corpus;
+
+    private final List<PluginProtos.CodeGeneratorResponse.File> generated = new ArrayList<>();
+    private Path sources;
+
+    @Setup
+    public void setup() throws CodeGenException, IOException {
+        try (FileSystem fs = corpus.newFileSystem()) {
+            Path workdir = fs.getPath(".");
+            PluginProtos.CodeGeneratorRequest request = corpus.codeGeneratorRequest(workdir);
+            for (String plugin : List.of("java", "grpc-java")) {
+                generated.addAll(GrpcZeroCodeGen.runNativePlugin(plugin, request, workdir, new GrpcZeroReport())
+                        .getFileList());
+            }
+            generated.addAll(new MutinyGrpcGenerator().generateFiles(request));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void writeSources() throws IOException {
+        sources = Files.createTempDirectory("grpc-zero-postprocessing");
+        for (PluginProtos.CodeGeneratorResponse.File file : generated) {
+            Path path = sources.resolve(file.getName());
+            Files.createDirectories(path.getParent());
+            Files.writeString(path, file.getContent());
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteSources() throws IOException {
+        try (Stream<Path> paths = Files.walk(sources)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toArray(Path[]::new)) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public int postprocess() {
+        return new GrpcZeroPostProcessing(sources).postprocess();
+    }
+}
@@ -0,0 +1,70 @@
+package io.quarkiverse.grpc.codegen;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dylibso.chicory.runtime.ByteArrayMemory;
+import com.dylibso.chicory.runtime.ImportMemory;
+import com.dylibso.chicory.runtime.ImportValues;
+import com.dylibso.chicory.runtime.Instance;
+import com.dylibso.chicory.wasi.WasiOptions;
+import com.dylibso.chicory.wasi.WasiPreview1;
+import com.dylibso.chicory.wasm.WasmModule;
+import com.dylibso.chicory.wasm.types.MemoryLimits;
+
+/**
+ * Cost of parsing the protoc-wrapper module and of instantiating it without running its main.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProtocWrapperBenchmark {
+
+    private WasmModule module;
+    private WasiPreview1 wasi;
+
+    @Setup
+    public void setup() {
+        module = ProtocWrapper.load();
+        wasi = WasiPreview1.builder().withOptions(WasiOptions.builder().build()).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        wasi.close();
+    }
+
+    @Benchmark
+    public WasmModule load() {
+        return ProtocWrapper.load();
+    }
+
+    @Benchmark
+    public Instance instantiate() {
+        var imports = ImportValues.builder()
+                .addFunction(wasi.toHostFunctions())
+                .addMemory(new ImportMemory("env", "memory",
+                        new ByteArrayMemory(new MemoryLimits(10, MemoryLimits.MAX_PAGES,
+                                CodegenEngine.importedMemory(module).shared()))))
+                .build();
+        return Instance.builder(module)
+                .withImportValues(imports)
+                .withMachineFactory(ProtocWrapper::create)
+                .withStart(false)
+                .build();
+    }
+}
@@ -0,0 +1,146 @@
+package io.quarkiverse.grpc.codegen;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.quarkus.bootstrap.model.ApplicationModel;
+import io.quarkus.bootstrap.prebuild.CodeGenException;
+import io.quarkus.deployment.CodeGenContext;
+import io.smallrye.config.PropertiesConfigSource;
+import io.smallrye.config.SmallRyeConfig;
+import io.smallrye.config.SmallRyeConfigBuilder;
+
+/**
+ * Scaling suite: runs {@link GrpcZeroCodeGen#trigger(CodeGenContext)} over {@link SyntheticCorpus} schemas of growing
+ * size and records the wall time of each run along with the peak heap usage.
+ * <p>
+ * The default parameters only go up to 1000 files, larger corpora are selected explicitly, e.g.
+ * {@code java -jar benchmarks/target/benchmarks.jar ScalingBenchmark -p fileCount=10000}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ScalingBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int fileCount;
+
+    @Param({ "10" })
+    public int messagesPerFile;
+
+    @Param({ "3" })
+    public int fanOut;
+
+    @Param({ "3" })
+    public int fanIn;
+
+    @Param({ "2" })
+    public int depth;
+
+    @Param({ "1" })
+    public int servicesPerFile;
+
+    private Path project;
+    private ApplicationModel model;
+    private SmallRyeConfig config;
+    private Path outDir;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+        public long peakHeapMb;
+        public long generatedFiles;
+
+        @Setup(Level.Invocation)
+        public void resetPeak() {
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    pool.resetPeakUsage();
+                }
+            }
+        }
+
+        void record(Path outDir) throws IOException {
+            long peak = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    peak += pool.getPeakUsage().getUsed();
+                }
+            }
+            peakHeapMb = Math.max(peakHeapMb, peak / (1024 * 1024));
+            try (var files = Files.walk(outDir)) {
+                generatedFiles = files.filter(Files::isRegularFile).count();
+            }
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        project = Files.createTempDirectory("grpc-zero-scaling");
+        SyntheticCorpus.builder()
+                .withFileCount(fileCount)
+                .withMessagesPerFile(messagesPerFile)
+                .withFanOut(fanOut)
+                .withFanIn(fanIn)
+                .withDepth(depth)
+                .withServicesPerFile(servicesPerFile)
+                .build()
+                .writeTo(project.resolve("src/main/proto"));
+        model = StandaloneModel.empty();
+        config = new SmallRyeConfigBuilder()
+                // each invocation has its own output directory, there is nothing to keep between runs
+                .withSources(new PropertiesConfigSource(Map.of(
+                        "quarkus.generate-code.grpc.scan-for-imports", "none",
+                        "quarkus.generate-code.grpc.incremental.enabled", "false"), "benchmark", 0))
+                .build();
+    }
+
+    @Setup(Level.Invocation)
+    public void newOutDir() throws IOException {
+        outDir = Files.createTempDirectory(project, "generated-sources");
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteOutDir() throws IOException {
+        TriggerBenchmark.delete(outDir);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        TriggerBenchmark.delete(project);
+    }
+
+    @Benchmark
+    public boolean trigger(Footprint footprint) throws CodeGenException, IOException {
+        GrpcZeroCodeGen codeGen = new GrpcZeroCodeGen();
+        codeGen.init(model, Map.of());
+        boolean generated = codeGen.trigger(new CodeGenContext(model, outDir, project.resolve("target"),
+                project.resolve("src/main/proto"), false, config, false));
+        footprint.record(outDir);
+        return generated;
+    }
+}
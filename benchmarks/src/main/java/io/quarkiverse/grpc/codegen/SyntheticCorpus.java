@@ -0,0 +1,214 @@
+package io.quarkiverse.grpc.codegen;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates proto corpora of arbitrary size, to look for super-linear behavior in the code generator.
+ * <p>
+ * Files only import files with a lower index, so the import graph is always a DAG. Imports are drawn from the first
+ * {@code fileCount * fanOut / fanIn} files: a higher fan-in concentrates the imports on fewer, more shared files.
+ * The generation is deterministic for a given seed.
+ */
+public final class SyntheticCorpus {
+
+    private final int fileCount;
+    private final int messagesPerFile;
+    private final int fanOut;
+    private final int fanIn;
+    private final int depth;
+    private final int servicesPerFile;
+    private final long seed;
+
+    private SyntheticCorpus(Builder builder) {
+        this.fileCount = builder.fileCount;
+        this.messagesPerFile = builder.messagesPerFile;
+        this.fanOut = builder.fanOut;
+        this.fanIn = builder.fanIn;
+        this.depth = builder.depth;
+        this.servicesPerFile = builder.servicesPerFile;
+        this.seed = builder.seed;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Writes the corpus under {@code root}.
+     *
+     * @return the path of the generated files, relative to {@code root}
+     */
+    public List<String> writeTo(Path root) throws IOException {
+        Random random = new Random(seed);
+        int importPool = Math.max(1, (int) Math.min(fileCount, (long) fileCount * fanOut / Math.max(1, fanIn)));
+        List<String> files = new ArrayList<>(fileCount);
+        for (int i = 0; i < fileCount; i++) {
+            files.add(directory(i) + "file" + i + ".proto");
+        }
+        for (int i = 0; i < fileCount; i++) {
+            Set<Integer> imports = new LinkedHashSet<>();
+            int candidates = Math.min(i, importPool);
+            int wanted = Math.min(fanOut, candidates);
+            while (imports.size() < wanted) {
+                imports.add(random.nextInt(candidates));
+            }
+            Path file = root.resolve(files.get(i));
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, proto(i, imports, files));
+        }
+        return files;
+    }
+
+    private String directory(int index) {
+        StringBuilder directory = new StringBuilder();
+        for (int level = 0; level < depth; level++) {
+            directory.append("level").append(level).append("_").append(index % (level + 2)).append('/');
+        }
+        return directory.toString();
+    }
+
+    private static String protoPackage(int index) {
+        return "synthetic.file" + index;
+    }
+
+    private String proto(int index, Set<Integer> imports, List<String> files) {
+        StringBuilder proto = new StringBuilder();
+        proto.append("// Generated by SyntheticCorpus, do not edit.\n\n");
+        proto.append("syntax = \"proto3\";\n\n");
+        proto.append("option java_multiple_files = true;\n");
+        proto.append("option java_package = \"io.quarkiverse.grpc.synthetic.file").append(index).append("\";\n\n");
+        proto.append("package ").append(protoPackage(index)).append(";\n\n");
+        for (int imported : imports) {
+            proto.append("import \"").append(files.get(imported)).append("\";\n");
+        }
+        proto.append('\n');
+
+        List<Integer> importList = new ArrayList<>(imports);
+        for (int m = 0; m < messagesPerFile; m++) {
+            proto.append("message Message").append(m).append(" {\n");
+            proto.append("  string name = 1;\n");
+            proto.append("  int64 id = 2;\n");
+            proto.append("  repeated string tags = 3;\n");
+            proto.append("  map<string, string> labels = 4;\n");
+            if (m > 0) {
+                proto.append("  Message").append(m - 1).append(" previous = 5;\n");
+            }
+            if (!importList.isEmpty()) {
+                int imported = importList.get(m % importList.size());
+                proto.append("  ").append(protoPackage(imported)).append(".Message")
+                        .append(m % messagesPerFile).append(" imported = 6;\n");
+            }
+            proto.append("  enum State {\n    STATE_UNSPECIFIED = 0;\n    STATE_ACTIVE = 1;\n  }\n");
+            proto.append("  State state = 7;\n");
+            proto.append("}\n\n");
+        }
+
+        for (int s = 0; s < servicesPerFile; s++) {
+            proto.append("service Service").append(s).append(" {\n");
+            for (int m = 0; m + 1 < messagesPerFile && m < 4; m++) {
+                String request = "Message" + m;
+                String response = "Message" + (m + 1);
+                switch (m) {
+                    case 0:
+                        proto.append("  rpc Unary").append(m).append(" (").append(request).append(") returns (")
+                                .append(response).append(");\n");
+                        break;
+                    case 1:
+                        proto.append("  rpc ServerStream").append(m).append(" (").append(request)
+                                .append(") returns (stream ").append(response).append(");\n");
+                        break;
+                    case 2:
+                        proto.append("  rpc ClientStream").append(m).append(" (stream ").append(request)
+                                .append(") returns (").append(response).append(");\n");
+                        break;
+                    default:
+                        proto.append("  rpc BidiStream").append(m).append(" (stream ").append(request)
+                                .append(") returns (stream ").append(response).append(");\n");
+                }
+            }
+            proto.append("}\n\n");
+        }
+        return proto.toString();
+    }
+
+    public static final class Builder {
+        private int fileCount = 10;
+        private int messagesPerFile = 10;
+        private int fanOut = 2;
+        private int fanIn = 2;
+        private int depth = 1;
+        private int servicesPerFile = 1;
+        private long seed = 42;
+
+        private Builder() {
+        }
+
+        /**
+         * Number of proto files, 10 by default.
+         */
+        public Builder withFileCount(int fileCount) {
+            this.fileCount = fileCount;
+            return this;
+        }
+
+        /**
+         * Number of top-level messages per file, 10 by default. Each message references the previous one and a
+         * message of one of the imported files.
+         */
+        public Builder withMessagesPerFile(int messagesPerFile) {
+            this.messagesPerFile = messagesPerFile;
+            return this;
+        }
+
+        /**
+         * Number of imports per file, 2 by default.
+         */
+        public Builder withFanOut(int fanOut) {
+            this.fanOut = fanOut;
+            return this;
+        }
+
+        /**
+         * Average number of importers of an imported file, 2 by default.
+         */
+        public Builder withFanIn(int fanIn) {
+            this.fanIn = fanIn;
+            return this;
+        }
+
+        /**
+         * Directory depth of the files below the corpus root, 1 by default.
+         */
+        public Builder withDepth(int depth) {
+            this.depth = depth;
+            return this;
+        }
+
+        /**
+         * Number of services per file, with up to four methods each, 1 by default.
+         */
+        public Builder withServicesPerFile(int servicesPerFile) {
+            this.servicesPerFile = servicesPerFile;
+            return this;
+        }
+
+        public Builder withSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public SyntheticCorpus build() {
+            if (fileCount < 1 || messagesPerFile < 1 || fanOut < 0 || fanIn < 1 || depth < 0 || servicesPerFile < 0) {
+                throw new IllegalArgumentException("Invalid synthetic corpus parameters");
+            }
+            return new SyntheticCorpus(this);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package io.quarkiverse.grpc.codegen;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.quarkus.bootstrap.model.ApplicationModel;
+import io.quarkus.bootstrap.prebuild.CodeGenException;
+import io.quarkus.deployment.CodeGenContext;
+import io.smallrye.config.PropertiesConfigSource;
+import io.smallrye.config.SmallRyeConfig;
+import io.smallrye.config.SmallRyeConfigBuilder;
+
+/**
+ * End-to-end cost of {@link GrpcZeroCodeGen#trigger(CodeGenContext)} over the corpus, as seen by a build with no
+ * dependencies to scan.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TriggerBenchmark {
+
+    @Param({ "SMALL", "LARGE" })
+    public Corpus corpus;
+
+    private Path project;
+    private ApplicationModel model;
+    private SmallRyeConfig config;
+    private GrpcZeroCodeGen codeGen;
+    private Path outDir;
+
+    @Setup
+    public void setup() throws IOException {
+        project = Files.createTempDirectory("grpc-zero-trigger");
+        corpus.copyTo(project.resolve("src/main/proto"));
+        model = StandaloneModel.empty();
+        config = new SmallRyeConfigBuilder()
+                // each invocation has its own output directory, there is nothing to keep between runs
+                .withSources(new PropertiesConfigSource(Map.of(
+                        "quarkus.generate-code.grpc.scan-for-imports", "none",
+                        "quarkus.generate-code.grpc.incremental.enabled", "false"), "benchmark", 0))
+                .build();
+        codeGen = new GrpcZeroCodeGen();
+        codeGen.init(model, Map.of());
+    }
+
+    @Setup(Level.Invocation)
+    public void newOutDir() throws IOException {
+        outDir = Files.createTempDirectory(project, "generated-sources");
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteOutDir() throws IOException {
+        delete(outDir);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        delete(project);
+    }
+
+    @Benchmark
+    public boolean trigger() throws CodeGenException {
+        return codeGen.trigger(new CodeGenContext(model, outDir, project.resolve("target"),
+                project.resolve("src/main/proto"), false, config, false));
+    }
+
+    static void delete(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toArray(Path[]::new)) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package io.quarkiverse.grpc.codegen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.bootstrap.model.ApplicationModel;
+import io.quarkus.deployment.CodeGenContext;
+import io.smallrye.config.PropertiesConfigSource;
+import io.smallrye.config.SmallRyeConfig;
+import io.smallrye.config.SmallRyeConfigBuilder;
+
+/**
+ * Runs the code generation of a large synthetic schema in low-memory mode, with the 256 MiB heap configured for the
+ * surefire run of this module.
+ */
+public class LowMemoryTriggerTest {
+
+    private static final int FILE_COUNT = 500;
+
+    private Path project;
+
+    @BeforeEach
+    void createProject() throws IOException {
+        project = Files.createTempDirectory("grpc-zero-low-memory");
+    }
+
+    @AfterEach
+    void deleteProject() throws IOException {
+        TriggerBenchmark.delete(project);
+    }
+
+    @Test
+    public void generatesLargeSchemaInBoundedHeap() throws Exception {
+        assertTrue(Runtime.getRuntime().maxMemory() <= 256L * 1024 * 1024, "expected to run with -Xmx256m");
+
+        Path protoDir = project.resolve("src/main/proto");
+        List<String> protos = SyntheticCorpus.builder()
+                .withFileCount(FILE_COUNT)
+                .withMessagesPerFile(20)
+                .withFanOut(3)
+                .withFanIn(3)
+                .withDepth(2)
+                .build()
+                .writeTo(protoDir);
+        assertEquals(FILE_COUNT, protos.size());
+
+        ApplicationModel model = StandaloneModel.empty();
+        SmallRyeConfig config = new SmallRyeConfigBuilder()
+                .withSources(new PropertiesConfigSource(Map.of(
+                        "quarkus.generate-code.grpc.scan-for-imports", "none",
+                        "quarkus.generate-code.grpc.low-memory.enabled", "true",
+                        "quarkus.generate-code.grpc.low-memory.chunk-size", "20"), "test", 0))
+                .build();
+        Path outDir = project.resolve("target/generated-sources/grpc");
+        Path workDir = project.resolve("target");
+
+        GrpcZeroCodeGen codeGen = new GrpcZeroCodeGen();
+        codeGen.init(model, Map.of());
+        assertTrue(codeGen.trigger(new CodeGenContext(model, outDir, workDir, protoDir, false, config, false)));
+
+        try (var files = Files.walk(outDir)) {
+            // every file has messages, java_multiple_files and a service
+            assertTrue(files.filter(path -> path.toString().endsWith(".java")).count() > FILE_COUNT * 20L);
+        }
+        try (var spilled = Files.list(workDir.resolve("grpc-zero-spill"))) {
+            assertFalse(spilled.findAny().isPresent(), "spill files must be removed");
+        }
+    }
+}
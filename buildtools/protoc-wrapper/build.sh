@@ -16,3 +16,4 @@ ${SCRIPT_DIR}/prepare_build.sh
 
 ${SCRIPT_DIR}/build_protoc-wrapper.sh
 ${SCRIPT_DIR}/optimize_protoc-wrapper.sh
+${SCRIPT_DIR}/optimize_protoc-wrapper_profiling.sh
@@ -0,0 +1,25 @@
+// memcpy, memmove and memset for the bulk-memory builds of protoc-wrapper.
+//
+// The wasi-libc sysroot is built for MVP, so its string functions are byte/word loops even when the
+// rest of the program is compiled with -mbulk-memory. With bulk memory enabled clang lowers these
+// builtins to single memory.copy/memory.fill instructions, which Chicory backs with System.arraycopy
+// and Arrays.fill; defining them here takes precedence over the libc ones at link time.
+
+#include <cstddef>
+
+#ifndef __wasm_bulk_memory__
+#error bulk_memory.cc must be compiled with -mbulk-memory
+#endif
+
+extern "C" {
+
+void* memcpy(void* __restrict dest, const void* __restrict src, size_t n) {
+  return __builtin_memcpy(dest, src, n);
+}
+
+// memory.copy behaves as if the source was copied to a temporary buffer first, so it handles overlaps
+void* memmove(void* dest, const void* src, size_t n) { return __builtin_memmove(dest, src, n); }
+
+void* memset(void* dest, int c, size_t n) { return __builtin_memset(dest, c, n); }
+
+}  // extern "C"
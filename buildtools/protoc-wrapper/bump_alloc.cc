@@ -0,0 +1,167 @@
+// Bump allocator replacing wasi-libc's dlmalloc in the ALLOCATOR=bump build of protoc-wrapper.
+//
+// Every protoc-wrapper run gets a fresh instance whose memory is thrown away when the command exits, so
+// the allocator never needs to give memory back: allocation is a pointer increment, free only reclaims
+// the most recent block (the common pattern for temporary strings), realloc grows the most recent block
+// in place. Memory is grown in large steps to keep the number of memory.grow calls low.
+
+#include <cerrno>
+#include <cstddef>
+#include <cstdint>
+#include <cstring>
+
+extern "C" {
+extern unsigned char __heap_base;
+}
+
+namespace {
+
+constexpr size_t kAlignment = 16;
+constexpr size_t kPageSize = 65536;
+// grow by at least 4 MiB at a time
+constexpr size_t kMinGrowPages = 64;
+// the 4 GiB wasm32 can address
+constexpr uint64_t kMaxHeapEnd = (uint64_t)65536 * kPageSize;
+
+// stored right before each (aligned) payload
+struct Header {
+  size_t size;
+};
+
+// Addresses are computed in 64 bits: with --max-memory=4294967296 the end of a full memory (65536 pages) doesn't
+// fit in the 32-bit uintptr_t of wasm32, and an allocation close to it mustn't wrap around to a low address.
+uint64_t heap_top = 0;
+uint64_t heap_end = 0;
+bool initialized = false;
+Header* last_block = nullptr;
+
+inline uint64_t AlignUp(uint64_t value, size_t alignment) {
+  return (value + alignment - 1) & ~(uint64_t)(alignment - 1);
+}
+
+inline Header* HeaderOf(void* ptr) {
+  return reinterpret_cast<Header*>(static_cast<unsigned char*>(ptr) - sizeof(Header));
+}
+
+bool Reserve(uint64_t end) {
+  if (!initialized) {
+    heap_top = AlignUp(reinterpret_cast<uintptr_t>(&__heap_base), kAlignment);
+    heap_end = (uint64_t)__builtin_wasm_memory_size(0) * kPageSize;
+    initialized = true;
+  }
+  if (end <= heap_end) {
+    return true;
+  }
+  if (end > kMaxHeapEnd) {
+    return false;
+  }
+  size_t pages = (end - heap_end + kPageSize - 1) / kPageSize;
+  if (pages < kMinGrowPages) {
+    pages = kMinGrowPages;
+  }
+  if (__builtin_wasm_memory_grow(0, pages) == (size_t)-1) {
+    // retry with the exact amount before giving up
+    pages = (end - heap_end + kPageSize - 1) / kPageSize;
+    if (__builtin_wasm_memory_grow(0, pages) == (size_t)-1) {
+      return false;
+    }
+  }
+  heap_end += (uint64_t)pages * kPageSize;
+  return true;
+}
+
+void* Allocate(size_t size, size_t alignment) {
+  if (!initialized && !Reserve(0)) {
+    return nullptr;
+  }
+  if (alignment < kAlignment) {
+    alignment = kAlignment;
+  }
+  uint64_t payload = AlignUp(heap_top + sizeof(Header), alignment);
+  uint64_t end = AlignUp(payload + size, kAlignment);
+  if (!Reserve(end)) {
+    errno = ENOMEM;
+    return nullptr;
+  }
+  Header* header = reinterpret_cast<Header*>(static_cast<uintptr_t>(payload - sizeof(Header)));
+  header->size = size;
+  heap_top = end;
+  last_block = header;
+  return reinterpret_cast<void*>(static_cast<uintptr_t>(payload));
+}
+
+}  // namespace
+
+extern "C" {
+
+void* malloc(size_t size) { return Allocate(size, kAlignment); }
+
+void free(void* ptr) {
+  if (ptr == nullptr) {
+    return;
+  }
+  Header* header = HeaderOf(ptr);
+  if (header == last_block) {
+    heap_top = reinterpret_cast<uintptr_t>(header);
+    last_block = nullptr;
+  }
+}
+
+void* calloc(size_t count, size_t size) {
+  size_t total;
+  if (__builtin_mul_overflow(count, size, &total)) {
+    errno = ENOMEM;
+    return nullptr;
+  }
+  void* ptr = Allocate(total, kAlignment);
+  // memory above heap_top may have been used by a freed block, so it isn't guaranteed to be zero
+  if (ptr != nullptr) {
+    memset(ptr, 0, total);
+  }
+  return ptr;
+}
+
+void* realloc(void* ptr, size_t size) {
+  if (ptr == nullptr) {
+    return malloc(size);
+  }
+  Header* header = HeaderOf(ptr);
+  if (size <= header->size) {
+    header->size = size;
+    return ptr;
+  }
+  if (header == last_block) {
+    uint64_t end = AlignUp((uint64_t)reinterpret_cast<uintptr_t>(ptr) + size, kAlignment);
+    if (Reserve(end)) {
+      header->size = size;
+      heap_top = end;
+      return ptr;
+    }
+  }
+  void* moved = malloc(size);
+  if (moved != nullptr) {
+    memcpy(moved, ptr, header->size);
+  }
+  return moved;
+}
+
+void* aligned_alloc(size_t alignment, size_t size) { return Allocate(size, alignment); }
+
+int posix_memalign(void** result, size_t alignment, size_t size) {
+  void* ptr = Allocate(size, alignment);
+  if (ptr == nullptr) {
+    return ENOMEM;
+  }
+  *result = ptr;
+  return 0;
+}
+
+size_t malloc_usable_size(void* ptr) { return ptr == nullptr ? 0 : HeaderOf(ptr)->size; }
+
+// used by the musl parts of wasi-libc, defining them keeps dlmalloc out of the link
+void* __libc_malloc(size_t size) { return malloc(size); }
+void __libc_free(void* ptr) { free(ptr); }
+void* __libc_calloc(size_t count, size_t size) { return calloc(count, size); }
+void* __libc_realloc(void* ptr, size_t size) { return realloc(ptr, size); }
+
+}  // extern "C"
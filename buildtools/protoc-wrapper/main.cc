@@ -87,8 +87,14 @@ class JavaGrpcGenerator : public google::protobuf::compiler::CodeGenerator {
 #include <google/protobuf/compiler/plugin.h>
 #include <google/protobuf/compiler/java/generator.h>
 
+#include <google/protobuf/descriptor_database.h>
+
+#include <cstdint>
 #include <fstream>
 #include <iostream>
+#include <map>
+#include <memory>
+#include <set>
 #include <vector>
 #include <string>
 #include <cstring>
@@ -116,9 +122,255 @@ public:
     void Clear() { errors_.clear(); warnings_.clear(); }
 };
 
+// Loads the binary FileDescriptorSets passed with --descriptor_set_in (colon separated, like protoc) into database.
+// A file found in several sets must be identical in all of them, otherwise the first definition wins.
+static bool LoadDescriptorSetIn(const std::string& paths, google::protobuf::SimpleDescriptorDatabase* database) {
+    size_t start = 0;
+    while (start <= paths.size()) {
+        size_t end = paths.find(':', start);
+        if (end == std::string::npos) {
+            end = paths.size();
+        }
+        std::string path = paths.substr(start, end - start);
+        start = end + 1;
+        if (path.empty()) {
+            continue;
+        }
+        std::ifstream in(path, std::ios::binary);
+        google::protobuf::FileDescriptorSet fd_set;
+        if (!in || !fd_set.ParseFromIstream(&in)) {
+            std::cerr << "[ERROR] Could not read descriptor set: '" << path << "'" << std::endl;
+            return false;
+        }
+        for (const auto& file : fd_set.file()) {
+            if (!database->Add(file)) {
+                std::cerr << "[WARN] Ignoring conflicting definition of '" << file.name() << "' in " << path << std::endl;
+            }
+        }
+    }
+    return true;
+}
+
+// Parses the --descriptor_set_in arguments, colon separated and possibly repeated.
+static std::string DescriptorSetInArgument(const std::string& arg, std::string descriptor_set_in) {
+    const std::string flag = "--descriptor_set_in=";
+    if (arg.rfind(flag, 0) != 0) {
+        return descriptor_set_in;
+    }
+    if (!descriptor_set_in.empty()) {
+        descriptor_set_in += ":";
+    }
+    return descriptor_set_in + arg.substr(flag.size());
+}
+
+// Pool of the serve command, which outlives the requests.
+//
+// A DescriptorPool can't forget a file, but building a file from its FileDescriptorProto is cheap compared to
+// parsing it, and the FileDescriptorProto only depends on the file's own source. So the parsed files are kept
+// across requests, and invalidating a file only drops its own parse: the pool is rebuilt from the remaining parses
+// when it holds an invalidated file or a file depending on one, and only the changed files get parsed again.
+class ResidentPool {
+ public:
+  ResidentPool(google::protobuf::compiler::DiskSourceTree* source_tree,
+               google::protobuf::SimpleDescriptorDatabase* descriptor_set_in_db)
+      : source_tree_db_(source_tree), descriptor_set_in_db_(descriptor_set_in_db) {
+    Reset();
+  }
+
+  // Builds the file and its imports, parsing only what isn't cached yet.
+  const google::protobuf::FileDescriptor* Load(const std::string& name) {
+    const google::protobuf::FileDescriptor* fd = pool_->FindFileByName(name);
+    if (fd != nullptr) {
+      return fd;
+    }
+    if (!loading_.insert(name).second) {
+      std::cerr << "[ERROR] Import cycle through: '" << name << "'" << std::endl;
+      return nullptr;
+    }
+    google::protobuf::FileDescriptorProto proto;
+    auto parsed = parsed_.find(name);
+    // like the descriptors command, prebuilt descriptors win over the sources
+    if (descriptor_set_in_db_->FindFileByName(name, &proto)) {
+      // nothing to parse
+    } else if (parsed != parsed_.end()) {
+      proto = parsed->second;
+    } else if (source_tree_db_.FindFileByName(name, &proto)) {
+      parsed_[name] = proto;
+    } else {
+      std::cerr << "[ERROR] Failed to parse: '" << name << "'" << std::endl;
+      loading_.erase(name);
+      return nullptr;
+    }
+    for (const auto& dependency : proto.dependency()) {
+      if (Load(dependency) == nullptr) {
+        loading_.erase(name);
+        return nullptr;
+      }
+    }
+    fd = pool_->BuildFile(proto);
+    loading_.erase(name);
+    return fd;
+  }
+
+  // Forgets the parse of the changed files.
+  //
+  // Returns the changed files and the parsed files depending on them, directly or not: the descriptors to build again.
+  std::set<std::string> Invalidate(const std::vector<std::string>& changed) {
+    std::map<std::string, std::vector<std::string>> importers;
+    for (const auto& parsed : parsed_) {
+      for (const auto& dependency : parsed.second.dependency()) {
+        importers[dependency].push_back(parsed.first);
+      }
+    }
+    std::set<std::string> invalid;
+    std::vector<std::string> queue(changed.begin(), changed.end());
+    while (!queue.empty()) {
+      std::string name = queue.back();
+      queue.pop_back();
+      if (invalid.insert(name).second) {
+        auto found = importers.find(name);
+        if (found != importers.end()) {
+          queue.insert(queue.end(), found->second.begin(), found->second.end());
+        }
+      }
+    }
+    bool rebuild = false;
+    for (const auto& name : invalid) {
+      rebuild = rebuild || pool_->FindFileByName(name) != nullptr;
+    }
+    for (const auto& name : changed) {
+      parsed_.erase(name);
+    }
+    if (rebuild) {
+      Reset();
+    }
+    return invalid;
+  }
+
+ private:
+  void Reset() {
+    pool_ = std::make_unique<google::protobuf::DescriptorPool>();
+    pool_->EnforceWeakDependencies(true);
+  }
+
+  google::protobuf::compiler::SourceTreeDescriptorDatabase source_tree_db_;
+  google::protobuf::SimpleDescriptorDatabase* descriptor_set_in_db_;
+  std::map<std::string, google::protobuf::FileDescriptorProto> parsed_;
+  std::unique_ptr<google::protobuf::DescriptorPool> pool_;
+  std::set<std::string> loading_;
+};
+
+// Frames of the serve command: a little-endian 32 bits length followed by the payload. Request payloads are newline
+// separated arguments, the first one being the command. Response payloads start with a status byte, 0 on success,
+// followed by the result or by an error message.
+static bool ReadFrame(std::istream& in, std::string* payload) {
+  unsigned char header[4];
+  if (!in.read(reinterpret_cast<char*>(header), sizeof(header))) {
+    return false;
+  }
+  uint32_t size = header[0] | header[1] << 8 | header[2] << 16 | static_cast<uint32_t>(header[3]) << 24;
+  payload->resize(size);
+  return size == 0 || static_cast<bool>(in.read(&(*payload)[0], size));
+}
+
+static void WriteFrame(std::ostream& out, char status, const std::string& payload) {
+  uint32_t size = payload.size() + 1;
+  char header[4] = {static_cast<char>(size & 0xff), static_cast<char>((size >> 8) & 0xff),
+                    static_cast<char>((size >> 16) & 0xff), static_cast<char>((size >> 24) & 0xff)};
+  out.write(header, sizeof(header));
+  out.put(status);
+  out.write(payload.data(), payload.size());
+  out.flush();
+}
+
+static std::vector<std::string> SplitLines(const std::string& text) {
+  std::vector<std::string> lines;
+  size_t start = 0;
+  while (start < text.size()) {
+    size_t end = text.find('\n', start);
+    if (end == std::string::npos) {
+      end = text.size();
+    }
+    if (end > start) {
+      lines.push_back(text.substr(start, end - start));
+    }
+    start = end + 1;
+  }
+  return lines;
+}
+
+// Long-lived variant of the descriptors command, answering requests read from stdin until it's closed or an exit
+// request comes in:
+//   descriptors [--include_source_info] PROTO_FILES: the serialized FileDescriptorSet of the files
+//   invalidate FILES: forgets the files whose source changed, answers the files to build again, one per line
+//   exit
+static int Serve(int argc, char** argv) {
+#ifdef PROTOC_WRAPPER_BUMP_ALLOC
+  std::cerr << "[ERROR] serve needs an allocator reusing memory, the bump allocator never does" << std::endl;
+  return 2;
+#else
+  std::string descriptor_set_in;
+  for (int i = 2; i < argc; ++i) {
+    descriptor_set_in = DescriptorSetInArgument(argv[i], descriptor_set_in);
+  }
+  google::protobuf::compiler::DiskSourceTree source_tree;
+  source_tree.MapPath("", ".");
+  google::protobuf::SimpleDescriptorDatabase descriptor_set_in_db;
+  if (!descriptor_set_in.empty() && !LoadDescriptorSetIn(descriptor_set_in, &descriptor_set_in_db)) {
+    return 1;
+  }
+  ResidentPool pool(&source_tree, &descriptor_set_in_db);
+
+  std::string request;
+  while (ReadFrame(std::cin, &request)) {
+    std::vector<std::string> args = SplitLines(request);
+    if (args.empty() || args[0] == "exit") {
+      break;
+    }
+    if (args[0] == "descriptors") {
+      bool include_source_info = false;
+      google::protobuf::FileDescriptorSet fd_set;
+      std::string failed;
+      for (size_t i = 1; i < args.size() && failed.empty(); ++i) {
+        if (args[i] == "--include_source_info") {
+          include_source_info = true;
+          continue;
+        }
+        const google::protobuf::FileDescriptor* fd = pool.Load(args[i]);
+        if (fd == nullptr) {
+          failed = args[i];
+          break;
+        }
+        auto* proto = fd_set.add_file();
+        fd->CopyTo(proto);
+        if (include_source_info) {
+          fd->CopySourceCodeInfoTo(proto);
+        }
+      }
+      if (!failed.empty()) {
+        WriteFrame(std::cout, 1, "Failed to import: '" + failed + "'");
+      } else {
+        std::string output;
+        fd_set.SerializeToString(&output);
+        WriteFrame(std::cout, 0, output);
+      }
+    } else if (args[0] == "invalidate") {
+      std::string output;
+      for (const auto& name : pool.Invalidate(std::vector<std::string>(args.begin() + 1, args.end()))) {
+        output += name + "\n";
+      }
+      WriteFrame(std::cout, 0, output);
+    } else {
+      WriteFrame(std::cout, 1, "Unknown serve command: " + args[0]);
+    }
+  }
+  return 0;
+#endif
+}
+
 int main(int argc, char** argv) {
     if (argc < 2) {
-        std::cerr << "Usage: " << argv[0] << " <descriptors | grpc-java>\n";
+        std::cerr << "Usage: " << argv[0] << " <descriptors [--descriptor_set_in=FILES] [--include_source_info] PROTO_FILES | serve [--descriptor_set_in=FILES] | java | grpc-java>\n";
         return 1;
     }
 
@@ -126,6 +378,8 @@ int main(int argc, char** argv) {
 
     if (option == "descriptors") {
       std::vector<std::string> proto_files;
+      std::string descriptor_set_in;
+      bool include_source_info = false;
 
       for (int i = 2; i < argc; ++i) {
         std::string arg = argv[i];
@@ -133,6 +387,10 @@ int main(int argc, char** argv) {
         // plain proto files
         if (!arg.empty() && arg[0] != '-') {
           proto_files.push_back(arg);
+        } else if (arg.rfind("--descriptor_set_in=", 0) == 0) {
+          descriptor_set_in = DescriptorSetInArgument(arg, descriptor_set_in);
+        } else if (arg == "--include_source_info") {
+          include_source_info = true;
         } else {
           std::cerr << "[WARN] Unknown argument detected " << arg << std::endl;
         }
@@ -151,7 +409,17 @@ int main(int argc, char** argv) {
       source_tree.MapPath("", ".");
 
       SimpleErrorTracker error_tracker;
-      google::protobuf::compiler::Importer importer(&source_tree, nullptr);
+
+      // Files available as prebuilt descriptors are looked up there first and never parsed from text, the source
+      // tree is only consulted for the rest.
+      google::protobuf::SimpleDescriptorDatabase descriptor_set_in_db;
+      if (!descriptor_set_in.empty() && !LoadDescriptorSetIn(descriptor_set_in, &descriptor_set_in_db)) {
+        return 1;
+      }
+      google::protobuf::compiler::SourceTreeDescriptorDatabase source_tree_db(&source_tree);
+      google::protobuf::MergedDescriptorDatabase merged_db(&descriptor_set_in_db, &source_tree_db);
+      google::protobuf::DescriptorPool pool(&merged_db, source_tree_db.GetValidationErrorCollector());
+      pool.EnforceWeakDependencies(true);
 
       google::protobuf::FileDescriptorSet fd_set;
       
@@ -163,7 +431,7 @@ int main(int argc, char** argv) {
         if (!proto_in) {
           std::cerr << "[ERROR] Could not open proto file: '" << file << "'" << std::endl;
         }
-        const google::protobuf::FileDescriptor* fd = importer.Import(file.c_str());
+        const google::protobuf::FileDescriptor* fd = pool.FindFileByName(file);
         if (!fd) {
           std::cerr << "[ERROR] Failed to import: '" << file << "'" << std::endl;
           
@@ -182,12 +450,18 @@ int main(int argc, char** argv) {
         }
         auto* proto = fd_set.add_file();
         fd->CopyTo(proto);
+        if (include_source_info) {
+          fd->CopySourceCodeInfoTo(proto);
+        }
       }
 
       // Write to stdout
       fd_set.SerializeToOstream(&std::cout);
       return 0;
     }
+    else if (option == "serve") {
+      return Serve(argc, argv);
+    }
     else if (option == "java") {
       google::protobuf::compiler::java::JavaGenerator generator;
       #ifdef GOOGLE_PROTOBUF_RUNTIME_INCLUDE_BASE
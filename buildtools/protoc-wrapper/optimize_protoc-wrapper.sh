@@ -5,4 +5,15 @@ SCRIPT_DIR=$( cd -- "$( dirname -- "${BASH_SOURCE[0]}" )" &> /dev/null && pwd )
 
 BINARYEN_PATH=${SCRIPT_DIR}/tools/binaryen-version_123
 
-${BINARYEN_PATH}/bin/wasm-opt -o build/protoc-wrapper.wasm --low-memory-unused --flatten --rereloop --converge -O3 build/protoc-wrapper
+# mvp (default), bulk-memory or bulk-memory-simd, must match the prepare_build.sh one
+WASM_FEATURES=${WASM_FEATURES:-mvp}
+# extra wasm-opt flags, e.g. a larger inlining budget for the speed variant
+WASM_OPT_FLAGS=${WASM_OPT_FLAGS:-}
+
+FEATURE_FLAGS=""
+case "${WASM_FEATURES}" in
+    bulk-memory) FEATURE_FLAGS="--enable-bulk-memory" ;;
+    bulk-memory-simd) FEATURE_FLAGS="--enable-bulk-memory --enable-simd" ;;
+esac
+
+${BINARYEN_PATH}/bin/wasm-opt $FEATURE_FLAGS $WASM_OPT_FLAGS -o build/protoc-wrapper.wasm --low-memory-unused --flatten --rereloop --converge -O3 build/protoc-wrapper
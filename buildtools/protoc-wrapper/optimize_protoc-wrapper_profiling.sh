@@ -0,0 +1,18 @@
+#! /bin/bash
+set -euxo pipefail
+
+SCRIPT_DIR=$( cd -- "$( dirname -- "${BASH_SOURCE[0]}" )" &> /dev/null && pwd )
+
+BINARYEN_PATH=${SCRIPT_DIR}/tools/binaryen-version_123
+
+WASM_FEATURES=${WASM_FEATURES:-mvp}
+WASM_OPT_FLAGS=${WASM_OPT_FLAGS:-}
+
+FEATURE_FLAGS=""
+case "${WASM_FEATURES}" in
+    bulk-memory) FEATURE_FLAGS="--enable-bulk-memory" ;;
+    bulk-memory-simd) FEATURE_FLAGS="--enable-bulk-memory --enable-simd" ;;
+esac
+
+# Same passes as the release binary, but keep the name section (-g) so that guest profiles can be symbolized
+${BINARYEN_PATH}/bin/wasm-opt $FEATURE_FLAGS $WASM_OPT_FLAGS -g -o build/protoc-wrapper-profiling.wasm --low-memory-unused --flatten --rereloop --converge -O3 build/protoc-wrapper
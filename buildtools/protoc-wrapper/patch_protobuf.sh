@@ -4,6 +4,8 @@ set -euxo pipefail
 SCRIPT_DIR=$( cd -- "$( dirname -- "${BASH_SOURCE[0]}" )" &> /dev/null && pwd )
 
 cp ${SCRIPT_DIR}/main.cc ${SCRIPT_DIR}/protobuf
+cp ${SCRIPT_DIR}/bump_alloc.cc ${SCRIPT_DIR}/protobuf
+cp ${SCRIPT_DIR}/bulk_memory.cc ${SCRIPT_DIR}/protobuf
 
 cat <<EOF >> ${SCRIPT_DIR}/protobuf/CMakeLists.txt
 add_custom_target(plugins)
@@ -13,6 +15,14 @@ add_executable(protoc-wrapper \${protoc-wrapper_files} \${protobuf_version_rc_fi
 target_link_libraries(protoc-wrapper libprotoc libprotobuf)
 set_target_properties(protoc-wrapper PROPERTIES VERSION \${protobuf_VERSION})
 add_dependencies(plugins protoc-wrapper)
+if(PROTOC_WRAPPER_ALLOCATOR STREQUAL "bump")
+  target_sources(protoc-wrapper PRIVATE \${protobuf_SOURCE_DIR}/bump_alloc.cc)
+  # the serve command is long-lived, it refuses to run on an allocator that never frees
+  target_compile_definitions(protoc-wrapper PRIVATE PROTOC_WRAPPER_BUMP_ALLOC)
+endif()
+if(PROTOC_WRAPPER_BULK_MEMORY)
+  target_sources(protoc-wrapper PRIVATE \${protobuf_SOURCE_DIR}/bulk_memory.cc)
+endif()
 EOF
 
 rm ${SCRIPT_DIR}/protobuf/src/google/protobuf/compiler/subprocess.* ${SCRIPT_DIR}/protobuf/src/google/protobuf/compiler/command_line_interface.*
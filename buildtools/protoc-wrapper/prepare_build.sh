@@ -5,9 +5,53 @@ SCRIPT_DIR=$( cd -- "$( dirname -- "${BASH_SOURCE[0]}" )" &> /dev/null && pwd )
 
 WASI_SDK_PATH=${SCRIPT_DIR}/tools/wasi-sdk-25.0-x86_64-linux
 
-CFLAGS="-D_WASI_EMULATED_MMAN -D_WASI_EMULATED_PROCESS_CLOCKS -D_WASI_EMULATED_SIGNAL -DABSL_HAVE_MMAP -DABSL_FORCE_THREAD_IDENTITY_MODE=1"
+# pthread (default) or single
+THREAD_MODEL=${THREAD_MODEL:-pthread}
+# dlmalloc (default, from wasi-libc) or bump, see bump_alloc.cc
+ALLOCATOR=${ALLOCATOR:-dlmalloc}
+# mvp (default), bulk-memory or bulk-memory-simd
+WASM_FEATURES=${WASM_FEATURES:-mvp}
+
+case "${WASM_FEATURES}" in
+    mvp)
+        FEATURE_CFLAGS=""
+        BULK_MEMORY=OFF
+        ;;
+    bulk-memory)
+        FEATURE_CFLAGS="-mbulk-memory"
+        BULK_MEMORY=ON
+        ;;
+    bulk-memory-simd)
+        # SIMD is only supported by the Chicory interpreter, not by the build time compiler
+        FEATURE_CFLAGS="-mbulk-memory -msimd128"
+        BULK_MEMORY=ON
+        ;;
+    *)
+        echo "Unknown WASM_FEATURES ${WASM_FEATURES}"
+        exit 1
+        ;;
+esac
+
+if [ "${THREAD_MODEL}" = "single" ]; then
+    # The host always runs the guest on a single thread: targeting plain wasm32-wasi turns absl and protobuf
+    # mutexes, once-init and atomics into the wasi-libc single-threaded stubs instead of atomic wasm instructions.
+    TOOLCHAIN_FILE="$WASI_SDK_PATH/share/cmake/wasi-sdk.cmake"
+    THREAD_CFLAGS="-D_WASI_EMULATED_PTHREAD -DABSL_FORCE_THREAD_IDENTITY_MODE=2"
+    # the plain toolchain defines the memory in the module, import it like the pthread toolchain does (without
+    # --shared-memory, which needs atomics): the host creates it, caps its growth and reads its size
+    THREAD_LDFLAGS="-lwasi-emulated-pthread -Wl,--import-memory -Wl,--export-memory"
+    # FindThreads can't detect the stubs, absl and protobuf both require it
+    THREAD_CMAKE_ARGS=(-DCMAKE_THREAD_LIBS_INIT= -DCMAKE_HAVE_THREADS_LIBRARY=1 -DCMAKE_USE_PTHREADS_INIT=1 -DThreads_FOUND=TRUE)
+else
+    TOOLCHAIN_FILE="$WASI_SDK_PATH/share/cmake/wasi-sdk-pthread.cmake"
+    THREAD_CFLAGS="-DABSL_FORCE_THREAD_IDENTITY_MODE=1"
+    THREAD_LDFLAGS=""
+    THREAD_CMAKE_ARGS=()
+fi
+
+CFLAGS="-D_WASI_EMULATED_MMAN -D_WASI_EMULATED_PROCESS_CLOCKS -D_WASI_EMULATED_SIGNAL -DABSL_HAVE_MMAP $THREAD_CFLAGS $FEATURE_CFLAGS"
 CXXFLAGS="$CFLAGS -fno-exceptions"
-LDFLAGS="-lwasi-emulated-process-clocks -lwasi-emulated-mman -lwasi-emulated-signal -Wl,--max-memory=4294967296 -Wl,--global-base=1024"
+LDFLAGS="-lwasi-emulated-process-clocks -lwasi-emulated-mman -lwasi-emulated-signal $THREAD_LDFLAGS -Wl,--max-memory=4294967296 -Wl,--global-base=1024"
 
 mkdir -p $SCRIPT_DIR/build
 
@@ -15,11 +59,14 @@ mkdir -p $SCRIPT_DIR/build
     cd $SCRIPT_DIR/build
 
     cmake \
-        -DCMAKE_TOOLCHAIN_FILE="$WASI_SDK_PATH/share/cmake/wasi-sdk-pthread.cmake" \
+        -DCMAKE_TOOLCHAIN_FILE="$TOOLCHAIN_FILE" \
         -DCMAKE_BUILD_TYPE=Release \
         -DCMAKE_C_FLAGS="$CFLAGS" \
         -DCMAKE_CXX_FLAGS="$CXXFLAGS" \
         -DCMAKE_EXE_LINKER_FLAGS="$LDFLAGS" \
         -Dprotobuf_BUILD_TESTS=off \
+        -DPROTOC_WRAPPER_ALLOCATOR="$ALLOCATOR" \
+        -DPROTOC_WRAPPER_BULK_MEMORY=$BULK_MEMORY \
+        "${THREAD_CMAKE_ARGS[@]}" \
         -S $SCRIPT_DIR/protobuf
-)
\ No newline at end of file
+)
@@ -0,0 +1,198 @@
+package io.quarkiverse.grpc.codegen;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.microprofile.config.Config;
+import org.jboss.logging.Logger;
+
+import io.quarkus.maven.dependency.ResolvedDependency;
+
+/**
+ * Remembers which proto files and descriptor sets every dependency jar contains, so that dependency scans only open
+ * the jars that have something to extract.
+ * <p>
+ * Entries are keyed by the path of the jar and its SHA-1 checksum. The checksum is only computed again when the size
+ * or the modification time of the jar changed, a jar that is touched but not modified keeps its entry. Dependencies
+ * that are not a single jar, like the output directories of the other modules of the build, are always walked.
+ * <p>
+ * The index is a text file of the build directory, kept across builds. The
+ * {@code quarkus.generate-code.grpc.artifact-index} property, or the {@code grpc.zero.codegen.artifact-index} system
+ * property for all the modules of a build, points at a shared file instead, e.g. in the user's home.
+ */
+final class ArtifactIndex {
+    private static final Logger log = Logger.getLogger(ArtifactIndex.class);
+
+    static final String CONFIG = "quarkus.generate-code.grpc.artifact-index";
+    static final String FILE = "grpc.zero.codegen.artifact-index";
+    static final String DEFAULT_FILE = "grpc-zero-artifact-index.txt";
+
+    private static final String HEADER = "# grpc-zero artifact index v1";
+    private static final Map<Path, ArtifactIndex> INDEXES = new ConcurrentHashMap<>();
+
+    private final Path file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    /**
+     * @param files the proto files and descriptor sets of the jar, relative to its root
+     */
+    record Entry(long size, long lastModified, String sha1, List<String> files) {
+    }
+
+    private ArtifactIndex(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @return the index of the build, loaded once per JVM
+     */
+    static ArtifactIndex forBuild(Path workDir, Config config) {
+        String shared = config.getOptionalValue(CONFIG, String.class).orElseGet(() -> System.getProperty(FILE));
+        Path file = (shared != null ? Path.of(shared) : workDir.resolve(DEFAULT_FILE)).toAbsolutePath().normalize();
+        return INDEXES.computeIfAbsent(file, ArtifactIndex::load);
+    }
+
+    static ArtifactIndex load(Path file) {
+        ArtifactIndex index = new ArtifactIndex(file);
+        if (!Files.isRegularFile(file)) {
+            return index;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(reader.readLine())) {
+                log.debugf("Ignoring artifact index %s written by another version", file);
+                return index;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t");
+                if (fields.length < 4) {
+                    continue;
+                }
+                index.entries.put(fields[0], new Entry(Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[3],
+                        List.of(Arrays.copyOfRange(fields, 4, fields.length))));
+            }
+        } catch (IOException | RuntimeException e) {
+            // only costs a full scan
+            log.debugf(e, "Ignoring unreadable artifact index %s", file);
+            index.entries.clear();
+        }
+        return index;
+    }
+
+    /**
+     * Lists the proto files and descriptor sets of a dependency jar, from the index when the jar didn't change.
+     *
+     * @return the files of the jar relative to its root, or {@code null} when the dependency is not a single jar and
+     *         has to be walked
+     */
+    List<String> files(ResolvedDependency artifact, GrpcZeroReport report) throws IOException {
+        if (!artifact.getResolvedPaths().isSinglePath()) {
+            return null;
+        }
+        Path jar = artifact.getResolvedPaths().getSinglePath();
+        if (!Files.isRegularFile(jar)) {
+            return null;
+        }
+        String key = jar.toAbsolutePath().normalize().toString();
+        BasicFileAttributes attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.size() == size && entry.lastModified() == lastModified) {
+            report.cacheHit("artifact-index");
+            return entry.files();
+        }
+        String sha1 = sha1(jar);
+        if (entry != null && entry.sha1().equals(sha1)) {
+            report.cacheHit("artifact-index");
+        } else {
+            report.cacheMiss("artifact-index");
+            entry = new Entry(size, lastModified, sha1, list(artifact));
+        }
+        entries.put(key, new Entry(size, lastModified, sha1, entry.files()));
+        dirty = true;
+        return entry.files();
+    }
+
+    private static List<String> list(ResolvedDependency artifact) {
+        List<String> files = new ArrayList<>();
+        artifact.getContentTree().walk(pathVisit -> {
+            Path path = pathVisit.getPath();
+            if (path.getFileName() != null && isIndexed(path.getFileName().toString()) && Files.isRegularFile(path)) {
+                files.add(pathVisit.getRoot().relativize(path).toString());
+            }
+        });
+        files.sort(null);
+        return List.copyOf(files);
+    }
+
+    static boolean isIndexed(String fileName) {
+        return fileName.endsWith(".proto") || fileName.endsWith(".desc") || fileName.endsWith(".binpb");
+    }
+
+    private static String sha1(Path jar) throws IOException {
+        try (InputStream in = Files.newInputStream(jar)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Writes the index back if a scan added to it. Concurrent builds sharing the file may overwrite each other's
+     * entries, which are then computed again.
+     */
+    synchronized void save() {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                writer.write(HEADER);
+                writer.newLine();
+                for (Map.Entry<String, Entry> e : new TreeMap<>(entries).entrySet()) {
+                    Entry entry = e.getValue();
+                    writer.write(e.getKey() + '\t' + entry.size() + '\t' + entry.lastModified() + '\t' + entry.sha1());
+                    for (String indexed : entry.files()) {
+                        writer.write('\t' + indexed);
+                    }
+                    writer.newLine();
+                }
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            log.debugf(e, "Failed to write the artifact index %s", file);
+        }
+    }
+}
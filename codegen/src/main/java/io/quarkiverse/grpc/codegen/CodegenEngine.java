@@ -0,0 +1,251 @@
+package io.quarkiverse.grpc.codegen;
+
+import java.util.concurrent.Semaphore;
+import java.util.function.LongSupplier;
+
+import org.jboss.logging.Logger;
+
+import com.dylibso.chicory.runtime.ByteArrayMemory;
+import com.dylibso.chicory.runtime.ImportMemory;
+import com.dylibso.chicory.runtime.ImportValues;
+import com.dylibso.chicory.runtime.Instance;
+import com.dylibso.chicory.wasi.WasiExitException;
+import com.dylibso.chicory.wasi.WasiOptions;
+import com.dylibso.chicory.wasi.WasiPreview1;
+import com.dylibso.chicory.wasm.WasmModule;
+import com.dylibso.chicory.wasm.types.ImportSection;
+import com.dylibso.chicory.wasm.types.MemoryImport;
+import com.dylibso.chicory.wasm.types.MemoryLimits;
+
+/**
+ * Runs protoc-wrapper for every {@link GrpcZeroCodeGen} of the JVM.
+ * <p>
+ * Parallel Maven builds ({@code mvn -T}) run the code generation of several modules at once in the same JVM. Each
+ * protoc-wrapper run needs a fresh instance, whose linear memory lives on the heap, so the engine bounds both the
+ * number of instances running at the same time and the memory they can use together: an instance reserves the
+ * maximum size of its memory from the budget before it starts, and waits until enough is available.
+ * <p>
+ * Configured with system properties, as the engine is shared by all the modules of the build:
+ * <ul>
+ * <li>{@code grpc.zero.codegen.max-instances}: instances running at the same time, the number of processors by
+ * default</li>
+ * <li>{@code grpc.zero.codegen.memory-budget}: MiB of linear memory of all the running instances, half of the
+ * maximum heap by default</li>
+ * <li>{@code grpc.zero.codegen.instance-memory}: maximum MiB of linear memory of a single instance, 512 by default and
+ * never more than the budget</li>
+ * </ul>
+ */
+final class CodegenEngine {
+    private static final Logger log = Logger.getLogger(CodegenEngine.class);
+
+    static final String MAX_INSTANCES = "grpc.zero.codegen.max-instances";
+    static final String MEMORY_BUDGET = "grpc.zero.codegen.memory-budget";
+    static final String INSTANCE_MEMORY = "grpc.zero.codegen.instance-memory";
+
+    private static final int PAGE_SIZE = 64 * 1024;
+    private static final int PAGES_PER_MIB = 1024 * 1024 / PAGE_SIZE;
+    private static final int INITIAL_PAGES = 10;
+
+    private final Semaphore instances;
+    private final Semaphore pages;
+    private final int maxInstances;
+    private final int budgetPages;
+    private final int instancePages;
+
+    /**
+     * Parsing the protoc-wrapper module is expensive, so it only happens on first use rather than at class-init time,
+     * which is often enough a build where code generation is skipped or there are no protos.
+     */
+    private static final class ProtocWrapperModule {
+        static final WasmModule INSTANCE = ProtocWrapper.load();
+        static final MemoryLimits IMPORTED_MEMORY = importedMemory(INSTANCE);
+    }
+
+    private static final class Shared {
+        static final CodegenEngine INSTANCE = fromSystemProperties();
+    }
+
+    CodegenEngine(int maxInstances, int budgetPages, int instancePages) {
+        if (maxInstances < 1 || instancePages < INITIAL_PAGES || budgetPages < INITIAL_PAGES) {
+            throw new IllegalArgumentException("Invalid protoc-wrapper limits: " + maxInstances + " instances, "
+                    + budgetPages + " pages of budget, " + instancePages + " pages per instance");
+        }
+        this.instances = new Semaphore(maxInstances, true);
+        this.pages = new Semaphore(budgetPages, true);
+        this.maxInstances = maxInstances;
+        this.budgetPages = budgetPages;
+        this.instancePages = Math.min(instancePages, budgetPages);
+    }
+
+    static CodegenEngine get() {
+        return Shared.INSTANCE;
+    }
+
+    private static CodegenEngine fromSystemProperties() {
+        long maxHeapMib = Runtime.getRuntime().maxMemory() / (1024 * 1024);
+        int maxInstances = Integer.getInteger(MAX_INSTANCES, Runtime.getRuntime().availableProcessors());
+        long budgetMib = Long.getLong(MEMORY_BUDGET, Math.max(64, maxHeapMib / 2));
+        long instanceMib = Long.getLong(INSTANCE_MEMORY, 512);
+        log.debugf("protoc-wrapper engine: %d instances, %d MiB budget, %d MiB per instance", maxInstances, budgetMib,
+                instanceMib);
+        return new CodegenEngine(maxInstances, toPages(budgetMib), toPages(instanceMib));
+    }
+
+    /**
+     * The memory the module expects from the host: shared for the pthread build, not for the single-threaded one.
+     * A module defining its own memory would escape the limits of the engine, so it is rejected.
+     */
+    static MemoryLimits importedMemory(WasmModule module) {
+        ImportSection imports = module.importSection();
+        for (int i = 0; i < imports.importCount(); i++) {
+            if (imports.getImport(i) instanceof MemoryImport memory) {
+                return memory.limits();
+            }
+        }
+        throw new IllegalStateException("protoc-wrapper defines its own memory, it must be linked with "
+                + "-Wl,--import-memory for the engine to bound it");
+    }
+
+    private static int toPages(long mib) {
+        return (int) Math.min(MemoryLimits.MAX_PAGES, mib * PAGES_PER_MIB);
+    }
+
+    /**
+     * Waits for an instance slot and for its memory to fit in the budget.
+     */
+    Lease acquire() throws InterruptedException {
+        instances.acquire();
+        try {
+            pages.acquire(instancePages);
+        } catch (InterruptedException e) {
+            instances.release();
+            throw e;
+        }
+        return new Lease();
+    }
+
+    /**
+     * Leases an instance slot and its memory for a resident instance, one that outlives a single run, without
+     * waiting. A resident instance never takes the last slot nor the last instance worth of memory, so that the
+     * regular runs it may be waiting for can always make progress.
+     *
+     * @return the lease, or {@code null} when there is no room to spare
+     */
+    Lease tryAcquireResident() {
+        if (maxInstances < 2 || budgetPages < 2 * instancePages || !instances.tryAcquire()) {
+            return null;
+        }
+        if (instances.availablePermits() < 1 || !pages.tryAcquire(instancePages)) {
+            instances.release();
+            return null;
+        }
+        if (pages.availablePermits() < instancePages) {
+            pages.release(instancePages);
+            instances.release();
+            return null;
+        }
+        return new Lease();
+    }
+
+    /**
+     * Runs the protoc-wrapper main once, recording a {@link GrpcZeroEvents.WasmInstantiation} event.
+     * Linear memory never shrinks, so its final size is also the peak size of the run.
+     */
+    void run(WasiOptions wasiOpts, String command, long stdinSize, LongSupplier stdoutSize, GrpcZeroReport report) {
+        try (Lease lease = acquireUninterruptibly()) {
+            run(lease, wasiOpts, command, stdinSize, stdoutSize, report);
+        }
+    }
+
+    /**
+     * Runs the protoc-wrapper main on an instance already leased, which the caller releases.
+     */
+    void run(Lease lease, WasiOptions wasiOpts, String command, long stdinSize, LongSupplier stdoutSize,
+            GrpcZeroReport report) {
+        long start = System.nanoTime();
+        var event = new GrpcZeroEvents.WasmInstantiation();
+        var memory = lease.memory();
+        event.begin();
+        try (var wasi = WasiPreview1.builder().withOptions(wasiOpts).build()) {
+            var imports = ImportValues.builder()
+                    .addFunction(wasi.toHostFunctions())
+                    .addMemory(new ImportMemory("env", "memory", memory))
+                    .build();
+
+            if (GuestProfiler.isEnabled()) {
+                var profiler = GuestProfiler.create(ProtocWrapperModule.INSTANCE);
+                try {
+                    Instance.builder(profiler.module())
+                            .withImportValues(imports)
+                            .withUnsafeExecutionListener(profiler.listener())
+                            .build();
+                } finally {
+                    profiler.write(command);
+                }
+            } else {
+                Instance.builder(ProtocWrapperModule.INSTANCE)
+                        .withImportValues(imports)
+                        .withMachineFactory(ProtocWrapper::create)
+                        .build();
+            }
+        } catch (WasiExitException exit) {
+            event.exitCode = exit.exitCode();
+            throw exit;
+        } finally {
+            report.wasmInstantiation(start, memory.pages());
+            event.end();
+            if (event.shouldCommit()) {
+                event.command = command;
+                event.bytesIn = stdinSize;
+                event.bytesOut = stdoutSize.getAsLong();
+                event.peakMemoryPages = memory.pages();
+                event.commit();
+            }
+        }
+    }
+
+    private Lease acquireUninterruptibly() {
+        try {
+            return acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to run protoc-wrapper", e);
+        }
+    }
+
+    /**
+     * An instance slot along with the pages of memory reserved for it.
+     */
+    final class Lease implements AutoCloseable {
+        private boolean closed;
+
+        private Lease() {
+        }
+
+        /**
+         * A fresh memory, which can't grow beyond what has been reserved: protoc-wrapper fails to allocate instead.
+         */
+        ByteArrayMemory memory() {
+            MemoryLimits imported = ProtocWrapperModule.IMPORTED_MEMORY;
+            int initialPages = Math.min(instancePages, Math.max(INITIAL_PAGES, imported.initialPages()));
+            return new ByteArrayMemory(new MemoryLimits(initialPages, instancePages, imported.shared()));
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                pages.release(instancePages);
+                instances.release();
+            }
+        }
+    }
+
+    int availableInstances() {
+        return instances.availablePermits();
+    }
+
+    int availablePages() {
+        return pages.availablePermits();
+    }
+}
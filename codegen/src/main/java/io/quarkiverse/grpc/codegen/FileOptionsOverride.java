@@ -0,0 +1,79 @@
+package io.quarkiverse.grpc.codegen;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+import org.jboss.logging.Logger;
+
+import com.google.protobuf.DescriptorProtos;
+import com.google.protobuf.compiler.PluginProtos;
+
+/**
+ * Rewrites the options of the selected files of a code generator request, to make the generators see options the
+ * protos don't declare, see {@link OptimizeForOverride} and {@link MultipleFilesOverride}.
+ * <p>
+ * The files are rewritten both in {@code proto_file} and in {@code source_file_descriptors}, as the generators read
+ * either.
+ */
+final class FileOptionsOverride {
+    private static final Logger log = Logger.getLogger(FileOptionsOverride.class);
+
+    private final String description;
+    private final Predicate<DescriptorProtos.FileDescriptorProto> selector;
+    private final UnaryOperator<DescriptorProtos.FileOptions> rewrite;
+
+    /**
+     * @param description what the rewrite sets, for the log
+     */
+    FileOptionsOverride(String description, Predicate<DescriptorProtos.FileDescriptorProto> selector,
+            UnaryOperator<DescriptorProtos.FileOptions> rewrite) {
+        this.description = description;
+        this.selector = selector;
+        this.rewrite = rewrite;
+    }
+
+    /**
+     * @return the request with the options of the selected files rewritten, the same request when none is selected
+     */
+    PluginProtos.CodeGeneratorRequest apply(PluginProtos.CodeGeneratorRequest request) {
+        List<String> overridden = new ArrayList<>();
+        PluginProtos.CodeGeneratorRequest.Builder builder = request.toBuilder();
+        for (int i = 0; i < builder.getProtoFileCount(); i++) {
+            DescriptorProtos.FileDescriptorProto file = builder.getProtoFile(i);
+            if (selector.test(file)) {
+                builder.setProtoFile(i, rewrite(file));
+                overridden.add(file.getName());
+            }
+        }
+        if (overridden.isEmpty()) {
+            return request;
+        }
+        for (int i = 0; i < builder.getSourceFileDescriptorsCount(); i++) {
+            DescriptorProtos.FileDescriptorProto file = builder.getSourceFileDescriptors(i);
+            if (selector.test(file)) {
+                builder.setSourceFileDescriptors(i, rewrite(file));
+            }
+        }
+        log.infof("Grpc Zero: generating %s with %s", overridden, description);
+        return builder.build();
+    }
+
+    private DescriptorProtos.FileDescriptorProto rewrite(DescriptorProtos.FileDescriptorProto file) {
+        return file.toBuilder().setOptions(rewrite.apply(file.getOptions())).build();
+    }
+
+    /**
+     * @param packages proto packages, their sub-packages included
+     */
+    static boolean inPackages(String protoPackage, Collection<String> packages) {
+        for (String selected : packages) {
+            if (protoPackage.equals(selected) || protoPackage.startsWith(selected + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,158 @@
+package io.quarkiverse.grpc.codegen;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.protobuf.DescriptorProtos;
+import com.google.protobuf.compiler.PluginProtos;
+
+import io.quarkus.paths.PathTree;
+
+/**
+ * The generators that must leave some of the protos out, because the classes they would generate already come with
+ * a dependency, or because the configuration says so.
+ * <p>
+ * A proto that no generator has to process is not generated at all and is only used as an import.
+ */
+final class GeneratorSkips {
+
+    static final String JAVA = "java";
+    static final String GRPC_JAVA = "grpc-java";
+    static final String MUTINY = "mutiny";
+    static final String KOTLIN = "kotlin";
+    static final List<String> GENERATORS = List.of(JAVA, GRPC_JAVA, MUTINY, KOTLIN);
+
+    // files to leave out, by generator
+    private final Map<String, Set<String>> skipped = new HashMap<>();
+
+    void skip(String protoName, Collection<String> generators) {
+        for (String generator : generators) {
+            skipped.computeIfAbsent(generator, k -> new HashSet<>()).add(protoName);
+        }
+    }
+
+    boolean skips(String generator, String protoName) {
+        return skipped.getOrDefault(generator, Set.of()).contains(protoName);
+    }
+
+    /**
+     * @return whether none of the generators producing something for the file has to process it
+     */
+    boolean skipsEntirely(DescriptorProtos.FileDescriptorProto file, boolean kotlin) {
+        String name = file.getName();
+        if (!skips(JAVA, name)) {
+            return false;
+        }
+        return file.getServiceCount() == 0
+                || (skips(GRPC_JAVA, name) && skips(MUTINY, name) && (!kotlin || skips(KOTLIN, name)));
+    }
+
+    /**
+     * @return the request without the files the generator leaves out, the same request when it leaves none out
+     */
+    PluginProtos.CodeGeneratorRequest forGenerator(String generator, PluginProtos.CodeGeneratorRequest request) {
+        Set<String> files = skipped.get(generator);
+        if (files == null || request.getFileToGenerateList().stream().noneMatch(files::contains)) {
+            return request;
+        }
+        PluginProtos.CodeGeneratorRequest.Builder builder = request.toBuilder()
+                .clearFileToGenerate()
+                .clearSourceFileDescriptors();
+        for (String file : request.getFileToGenerateList()) {
+            if (!files.contains(file)) {
+                builder.addFileToGenerate(file);
+            }
+        }
+        for (DescriptorProtos.FileDescriptorProto file : request.getSourceFileDescriptorsList()) {
+            if (!files.contains(file.getName())) {
+                builder.addSourceFileDescriptors(file);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Looks for the classes the generators would produce for the file in the content of a dependency.
+     *
+     * @return the generators whose classes are all there
+     */
+    static List<String> compiledGenerators(DescriptorProtos.FileDescriptorProto file, PathTree classes) {
+        String packageDir = javaPackage(file).replace('.', '/');
+        String prefix = packageDir.isEmpty() ? "" : packageDir + "/";
+        List<String> compiled = new ArrayList<>();
+        List<String> javaClasses = new ArrayList<>();
+        javaClasses.add(outerClassName(file));
+        if (file.getOptions().getJavaMultipleFiles()) {
+            file.getMessageTypeList().forEach(message -> javaClasses.add(message.getName()));
+            file.getEnumTypeList().forEach(enumType -> javaClasses.add(enumType.getName()));
+        }
+        if (javaClasses.stream().allMatch(name -> classes.contains(prefix + name + ".class"))) {
+            compiled.add(JAVA);
+        }
+        if (file.getServiceCount() > 0) {
+            if (file.getServiceList().stream().allMatch(s -> classes.contains(prefix + s.getName() + "Grpc.class"))) {
+                compiled.add(GRPC_JAVA);
+            }
+            if (file.getServiceList().stream()
+                    .allMatch(s -> classes.contains(prefix + "Mutiny" + s.getName() + "Grpc.class"))) {
+                compiled.add(MUTINY);
+            }
+            if (file.getServiceList().stream().allMatch(s -> classes.contains(prefix + s.getName() + "GrpcKt.class"))) {
+                compiled.add(KOTLIN);
+            }
+        }
+        return compiled;
+    }
+
+    static String javaPackage(DescriptorProtos.FileDescriptorProto file) {
+        return file.getOptions().hasJavaPackage() ? file.getOptions().getJavaPackage() : file.getPackage();
+    }
+
+    /**
+     * The name protoc gives to the class holding the descriptor of the file, see {@code java/names.cc}.
+     */
+    static String outerClassName(DescriptorProtos.FileDescriptorProto file) {
+        if (file.getOptions().hasJavaOuterClassname()) {
+            return file.getOptions().getJavaOuterClassname();
+        }
+        String baseName = file.getName().substring(file.getName().lastIndexOf('/') + 1);
+        if (baseName.endsWith(".proto")) {
+            baseName = baseName.substring(0, baseName.length() - ".proto".length());
+        }
+        StringBuilder name = new StringBuilder();
+        boolean capitalizeNext = true;
+        for (char c : baseName.toCharArray()) {
+            if (c >= 'a' && c <= 'z') {
+                name.append(capitalizeNext ? Character.toUpperCase(c) : c);
+                capitalizeNext = false;
+            } else if (c >= 'A' && c <= 'Z') {
+                name.append(c);
+                capitalizeNext = false;
+            } else if (c >= '0' && c <= '9') {
+                name.append(c);
+                capitalizeNext = true;
+            } else {
+                capitalizeNext = true;
+            }
+        }
+        String outerClassName = name.toString();
+        boolean conflict = file.getMessageTypeList().stream().anyMatch(m -> conflicts(m, outerClassName))
+                || file.getEnumTypeList().stream().anyMatch(e -> e.getName().equals(outerClassName))
+                || file.getServiceList().stream().anyMatch(s -> s.getName().equals(outerClassName));
+        return conflict ? outerClassName + "OuterClass" : outerClassName;
+    }
+
+    /**
+     * Like protoc's {@code MessageHasConflictingClassName}, nested messages and enums count as well.
+     */
+    private static boolean conflicts(DescriptorProtos.DescriptorProto message, String className) {
+        return message.getName().equals(className)
+                || message.getEnumTypeList().stream().anyMatch(e -> e.getName().equals(className))
+                || message.getNestedTypeList().stream().anyMatch(nested -> conflicts(nested, className));
+    }
+}
@@ -0,0 +1,295 @@
+package io.quarkiverse.grpc.codegen;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URISyntaxException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.jboss.logging.Logger;
+
+import com.google.protobuf.DescriptorProtos;
+
+import io.quarkus.bootstrap.model.ApplicationModel;
+import io.quarkus.deployment.CodeGenContext;
+import io.quarkus.maven.dependency.ResolvedDependencyBuilder;
+import io.smallrye.config.PropertiesConfigSource;
+import io.smallrye.config.SmallRyeConfig;
+import io.smallrye.config.SmallRyeConfigBuilder;
+
+/**
+ * Runs the code generation outside of a Quarkus build, for many proto roots at once.
+ * <p>
+ * The roots are generated concurrently in the same JVM, so they share the {@link CodegenEngine}, the loaded
+ * protoc-wrapper module and the {@link ArtifactIndex} of the jars given with {@code --proto-path}. The protos of
+ * protobuf-java, the well-known types, are always importable. With {@code --watch}, the roots are generated again
+ * whenever one of their files changes, incrementally like in dev mode.
+ */
+public final class GrpcZeroCli {
+    private static final Logger log = Logger.getLogger(GrpcZeroCli.class);
+
+    static final int OK = 0;
+    static final int FAILED = 1;
+    static final int USAGE = 2;
+
+    private static final String USAGE_TEXT = """
+            Usage: GrpcZeroCli [options] <input-dir>=<output-dir>...
+              --proto-path <dir|jar>   protos to import from, may be repeated
+              --work-dir <dir>         work directory, a temporary directory by default
+              --threads <n>            roots generated at the same time, the number of processors by default
+              -D<key>=<value>          code generation property, e.g. -Dquarkus.generate-code.grpc.kotlin.generate=true
+              --watch                  generate the roots again when their files change
+            """;
+
+    // changes closer together than this are generated together
+    private static final long WATCH_SETTLE_MILLIS = 200;
+
+    private final List<Root> roots;
+    private final ApplicationModel model;
+    private final SmallRyeConfig config;
+    private final ExecutorService executor;
+    private final PrintStream out;
+
+    private record Root(Path input, Path output, Path workDir) {
+    }
+
+    private GrpcZeroCli(List<Root> roots, ApplicationModel model, SmallRyeConfig config, int threads, PrintStream out) {
+        this.roots = roots;
+        this.model = model;
+        this.config = config;
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "grpc-zero-cli");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.out = out;
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        List<String[]> rootArgs = new ArrayList<>();
+        List<Path> protoPath = new ArrayList<>();
+        Map<String, String> properties = new HashMap<>();
+        Path workDir = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean watch = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "--proto-path" -> protoPath.add(Path.of(value(args, ++i, arg)));
+                    case "--work-dir" -> workDir = Path.of(value(args, ++i, arg));
+                    case "--threads" -> threads = Integer.parseInt(value(args, ++i, arg));
+                    case "--watch" -> watch = true;
+                    case "-h", "--help" -> {
+                        out.print(USAGE_TEXT);
+                        return OK;
+                    }
+                    default -> {
+                        int separator = arg.indexOf('=');
+                        if (arg.startsWith("-D") && separator > 2) {
+                            properties.put(arg.substring(2, separator), arg.substring(separator + 1));
+                        } else if (!arg.startsWith("-") && separator > 0 && separator < arg.length() - 1) {
+                            rootArgs.add(new String[] { arg.substring(0, separator), arg.substring(separator + 1) });
+                        } else {
+                            throw new IllegalArgumentException("Unknown argument " + arg);
+                        }
+                    }
+                }
+            }
+            if (rootArgs.isEmpty()) {
+                throw new IllegalArgumentException("No <input-dir>=<output-dir> given");
+            }
+            if (threads < 1) {
+                throw new IllegalArgumentException("--threads must be at least 1");
+            }
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.print(USAGE_TEXT);
+            return USAGE;
+        }
+
+        try {
+            if (workDir == null) {
+                workDir = Files.createTempDirectory("grpc-zero-cli");
+            }
+            List<Root> roots = new ArrayList<>();
+            for (int i = 0; i < rootArgs.size(); i++) {
+                Path input = Path.of(rootArgs.get(i)[0]).toAbsolutePath().normalize();
+                if (!Files.isDirectory(input)) {
+                    err.println("Not a directory: " + input);
+                    return USAGE;
+                }
+                roots.add(new Root(input, Path.of(rootArgs.get(i)[1]).toAbsolutePath().normalize(),
+                        workDir.resolve(String.format("%03d-%s", i, input.getFileName()))));
+            }
+
+            List<ResolvedDependencyBuilder> dependencies = new ArrayList<>();
+            Path protobufJava = protobufJava();
+            if (protobufJava != null) {
+                dependencies.add(StandaloneModel.dependency("com.google.protobuf", "protobuf-java", protobufJava));
+            }
+            for (int i = 0; i < protoPath.size(); i++) {
+                dependencies.add(StandaloneModel.dependency("proto-path", String.valueOf(i),
+                        protoPath.get(i).toAbsolutePath().normalize()));
+            }
+            properties.putIfAbsent("quarkus.generate-code.grpc.scan-for-imports", "all");
+            // every root only extracts the well-known types and --proto-path protos it imports
+            properties.putIfAbsent("quarkus.generate-code.grpc.lazy-imports.enabled", "true");
+            if (watch) {
+                // generated again and again in this JVM, like in dev mode
+                properties.putIfAbsent("quarkus.generate-code.grpc.incremental.enabled", "true");
+                properties.putIfAbsent("quarkus.generate-code.grpc.incremental.resident-server", "true");
+            }
+            if (System.getProperty(ArtifactIndex.FILE) == null) {
+                // one index for all the roots, rather than one per work directory
+                properties.putIfAbsent(ArtifactIndex.CONFIG, workDir.resolve(ArtifactIndex.DEFAULT_FILE).toString());
+            }
+            SmallRyeConfig config = new SmallRyeConfigBuilder()
+                    .withSources(new PropertiesConfigSource(properties, "grpc-zero-cli", 0))
+                    .build();
+
+            GrpcZeroCli cli = new GrpcZeroCli(roots, StandaloneModel.of(dependencies), config,
+                    Math.min(threads, roots.size()), out);
+            try {
+                boolean generated = cli.generate(roots);
+                if (!watch) {
+                    return generated ? OK : FAILED;
+                }
+                cli.watch();
+                return OK;
+            } finally {
+                cli.executor.shutdownNow();
+            }
+        } catch (IOException e) {
+            err.println("Grpc Zero: " + e.getMessage());
+            return FAILED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return FAILED;
+        }
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value of " + option);
+        }
+        return args[index];
+    }
+
+    /**
+     * @return whether all the roots have been generated
+     */
+    private boolean generate(Iterable<Root> toGenerate) throws InterruptedException {
+        Map<Root, Future<?>> runs = new HashMap<>();
+        for (Root root : toGenerate) {
+            runs.put(root, executor.submit(() -> {
+                long start = System.nanoTime();
+                GrpcZeroCodeGen codeGen = new GrpcZeroCodeGen();
+                codeGen.init(model, Map.of());
+                Files.createDirectories(root.output());
+                Files.createDirectories(root.workDir());
+                codeGen.trigger(new CodeGenContext(model, root.output(), root.workDir(), root.input(), false, config,
+                        false));
+                out.printf("Grpc Zero: %s -> %s in %d ms%n", root.input(), root.output(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                return null;
+            }));
+        }
+        boolean generated = true;
+        for (Map.Entry<Root, Future<?>> run : runs.entrySet()) {
+            try {
+                run.getValue().get();
+            } catch (ExecutionException e) {
+                log.errorf(e.getCause(), "Grpc Zero: failed to generate %s", run.getKey().input());
+                generated = false;
+            }
+        }
+        return generated;
+    }
+
+    /**
+     * Generates the roots again on every change of their files, until interrupted.
+     */
+    private void watch() throws IOException, InterruptedException {
+        try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+            Map<WatchKey, Root> keys = new HashMap<>();
+            for (Root root : roots) {
+                register(watcher, root, root.input(), keys);
+            }
+            out.println("Grpc Zero: watching " + roots.size() + " proto roots");
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<Root> changed = new LinkedHashSet<>();
+                WatchKey key = watcher.take();
+                while (key != null) {
+                    Root root = keys.get(key);
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (root == null) {
+                            continue;
+                        }
+                        changed.add(root);
+                        if (event.kind() == ENTRY_CREATE) {
+                            Path created = ((Path) key.watchable()).resolve((Path) event.context());
+                            if (Files.isDirectory(created)) {
+                                register(watcher, root, created, keys);
+                            }
+                        }
+                    }
+                    if (!key.reset()) {
+                        keys.remove(key);
+                    }
+                    key = watcher.poll(WATCH_SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                if (!changed.isEmpty()) {
+                    generate(changed);
+                }
+            }
+        }
+    }
+
+    private static void register(WatchService watcher, Root root, Path directory, Map<WatchKey, Root> keys)
+            throws IOException {
+        try (Stream<Path> directories = Files.walk(directory)) {
+            for (Path dir : directories.filter(Files::isDirectory).toList()) {
+                keys.put(dir.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY, OVERFLOW), root);
+            }
+        }
+    }
+
+    /**
+     * @return the protobuf-java jar (or directory) of the CLI itself, which holds the well-known types
+     */
+    private static Path protobufJava() {
+        try {
+            var codeSource = DescriptorProtos.class.getProtectionDomain().getCodeSource();
+            return codeSource == null ? null : Path.of(codeSource.getLocation().toURI());
+        } catch (URISyntaxException | RuntimeException e) {
+            log.debug("Failed to locate protobuf-java, the well-known types can't be imported", e);
+            return null;
+        }
+    }
+}
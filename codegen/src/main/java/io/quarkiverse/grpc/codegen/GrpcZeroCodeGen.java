@@ -6,8 +6,10 @@ import static java.nio.file.Files.copy;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.FileSystem;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
@@ -19,34 +21,46 @@ import java.nio.file.attribute.FileAttribute;
 import java.nio.file.attribute.PosixFileAttributeView;
 import java.nio.file.attribute.PosixFilePermission;
 import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
 import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.eclipse.microprofile.config.Config;
 import org.jboss.logging.Logger;
 
-import com.dylibso.chicory.runtime.ByteArrayMemory;
-import com.dylibso.chicory.runtime.ImportMemory;
-import com.dylibso.chicory.runtime.ImportValues;
-import com.dylibso.chicory.runtime.Instance;
 import com.dylibso.chicory.runtime.TrapException;
 import com.dylibso.chicory.wasi.WasiExitException;
 import com.dylibso.chicory.wasi.WasiOptions;
-import com.dylibso.chicory.wasi.WasiPreview1;
-import com.dylibso.chicory.wasm.WasmModule;
-import com.dylibso.chicory.wasm.types.MemoryLimits;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
 import com.google.protobuf.DescriptorProtos;
+import com.google.protobuf.ExtensionRegistryLite;
+import com.google.protobuf.WireFormat;
 import com.google.protobuf.compiler.PluginProtos;
 
 import io.grpc.kotlin.generator.GeneratorRunner;
@@ -56,11 +70,14 @@ import io.quarkus.deployment.CodeGenContext;
 import io.quarkus.deployment.CodeGenProvider;
 import io.quarkus.grpc.protoc.plugin.MutinyGrpcGenerator;
 import io.quarkus.maven.dependency.ResolvedDependency;
+import io.quarkus.paths.OpenPathTree;
 import io.quarkus.paths.PathFilter;
+import io.quarkus.runtime.LaunchMode;
 import io.quarkus.runtime.util.HashUtil;
 import io.roastedroot.zerofs.Configuration;
 import io.roastedroot.zerofs.ZeroFs;
 import io.smallrye.common.os.OS;
+import io.smallrye.config.SmallRyeConfig;
 
 /**
  * Code generation for gRPC. Generates java classes from proto files placed in either src/main/proto or src/test/proto
@@ -74,16 +91,59 @@ public class GrpcZeroCodeGen implements CodeGenProvider {
     private static final String SCAN_DEPENDENCIES_FOR_PROTO = "quarkus.generate-code.grpc.scan-for-proto";
     private static final String SCAN_DEPENDENCIES_FOR_PROTO_INCLUDE_PATTERN = "quarkus.generate-code.grpc.scan-for-proto-include.\"%s\"";
     private static final String SCAN_DEPENDENCIES_FOR_PROTO_EXCLUDE_PATTERN = "quarkus.generate-code.grpc.scan-for-proto-exclude.\"%s\"";
+    private static final String SCAN_DEPENDENCIES_FOR_PROTO_SKIP_PATTERN = "quarkus.generate-code.grpc.scan-for-proto-skip.\"%s\"";
+    private static final String SKIP_COMPILED_PROTOS = "quarkus.generate-code.grpc.scan-for-proto-skip-compiled";
     private static final String SCAN_FOR_IMPORTS = "quarkus.generate-code.grpc.scan-for-imports";
+    private static final String PRUNE = "quarkus.generate-code.grpc.prune.enabled";
+    private static final String LAZY_IMPORTS = "quarkus.generate-code.grpc.lazy-imports.enabled";
+    private static final String SCAN_FOR_DESCRIPTOR_SETS = "quarkus.generate-code.grpc.scan-for-descriptor-sets";
+    private static final List<String> DESCRIPTOR_SET_EXTENSIONS = List.of(".desc", ".binpb");
+    // location of the prebuilt descriptor sets inside the in-memory workdir, passed to protoc-wrapper as --descriptor_set_in
+    private static final String DESCRIPTOR_SET_IN_DIR = "grpc-zero-descriptor-sets";
 
     private static final String POST_PROCESS_SKIP = "quarkus.generate.code.grpc-post-processing.skip";
     private static final String GENERATE_DESCRIPTOR_SET = "quarkus.generate-code.grpc.descriptor-set.generate";
     private static final String DESCRIPTOR_SET_OUTPUT_DIR = "quarkus.generate-code.grpc.descriptor-set.output-dir";
     private static final String DESCRIPTOR_SET_FILENAME = "quarkus.generate-code.grpc.descriptor-set.name";
+    private static final String PUBLISH_DESCRIPTOR_SET = "quarkus.generate-code.grpc.descriptor-set.publish";
+    static final String PUBLISHED_DESCRIPTOR_SET = "META-INF/grpc-zero/descriptor-set.binpb";
 
     private static final String GENERATE_KOTLIN = "quarkus.generate-code.grpc.kotlin.generate";
 
-    private static final WasmModule PROTOC_WRAPPER = ProtocWrapper.load();
+    private static final String LITE = "quarkus.generate-code.grpc.lite";
+    private static final String PROTO_UTILS = "io.grpc.protobuf.ProtoUtils";
+    private static final String PROTO_LITE_UTILS = "io.grpc.protobuf.lite.ProtoLiteUtils";
+
+    // generated sources above this size are worth splitting
+    private static final long LARGE_OUTPUT_BYTES = 1024 * 1024;
+
+    private static final String LOW_MEMORY = "quarkus.generate-code.grpc.low-memory.enabled";
+    private static final String LOW_MEMORY_CHUNK_SIZE = "quarkus.generate-code.grpc.low-memory.chunk-size";
+
+    private static final String GENERATE_REPORT = "quarkus.generate-code.grpc.report.generate";
+    private static final String REPORT_FILENAME = "quarkus.generate-code.grpc.report.file";
+
+    private static final String INCREMENTAL = "quarkus.generate-code.grpc.incremental.enabled";
+    private static final String RESIDENT_SERVER = "quarkus.generate-code.grpc.incremental.resident-server";
+
+    private static final String WARM_UP = "quarkus.generate-code.grpc.warm-up";
+    private static final AtomicBoolean WARM_UP_STARTED = new AtomicBoolean();
+    private static final String WARM_UP_PROTO = """
+            syntax = "proto3";
+
+            option java_package = "io.quarkiverse.grpc.warmup";
+
+            package warmup;
+
+            service WarmUp {
+              rpc Ping (Ping) returns (Ping);
+            }
+
+            message Ping {
+              string text = 1;
+              repeated int64 values = 2;
+            }
+            """;
 
     private String input;
     private boolean hasQuarkusKotlinDependency;
@@ -115,6 +175,41 @@ public class GrpcZeroCodeGen implements CodeGenProvider {
     public void init(ApplicationModel model, Map<String, String> properties) {
         this.input = properties.get("quarkus.grpc.codegen.proto-directory");
         this.hasQuarkusKotlinDependency = containsQuarkusKotlin(model.getDependencies());
+        if (TRUE.toString().equalsIgnoreCase(properties.get(WARM_UP))) {
+            warmUp();
+        }
+    }
+
+    /**
+     * Runs a tiny embedded proto through protoc-wrapper on a background thread, so that the module is loaded and the
+     * JIT has already compiled the hot parts of the machine when {@link #trigger} does real work.
+     * Started at most once per JVM, failures are ignored as the real run will report them.
+     */
+    static void warmUp() {
+        if (!WARM_UP_STARTED.compareAndSet(false, true)) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            long start = System.nanoTime();
+            try (FileSystem fs = ZeroFs.newFileSystem(
+                    Configuration.unix().toBuilder().setAttributeViews("unix").build())) {
+                var workdir = fs.getPath(".");
+                Files.writeString(workdir.resolve("warmup.proto"), WARM_UP_PROTO);
+                GrpcZeroReport report = new GrpcZeroReport();
+                PluginProtos.CodeGeneratorRequest request = PluginProtos.CodeGeneratorRequest.newBuilder()
+                        .addFileToGenerate("warmup.proto")
+                        .addAllProtoFile(getDescriptor(workdir, "warmup.proto", report).getFileList())
+                        .build();
+                runNativePlugin("java", request, workdir, report);
+                runNativePlugin("grpc-java", request, workdir, report);
+                log.debugf("protoc-wrapper warm-up finished in %d ms",
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            } catch (Exception e) {
+                log.debug("protoc-wrapper warm-up failed", e);
+            }
+        }, "grpc-zero-warm-up");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     @Override
@@ -127,6 +222,7 @@ public class GrpcZeroCodeGen implements CodeGenProvider {
         // HACK: if present on the classpath this code generator attempts to disable the "official" Quarkus
         System.getProperties().setProperty("grpc.codegen.skip", "true");
 
+        GrpcZeroReport report = new GrpcZeroReport();
         Path outDir = context.outDir();
         Path workDir = context.workDir();
         Path inputDir = CodeGenProvider.resolve(context.inputDir());
@@ -135,117 +231,689 @@ public class GrpcZeroCodeGen implements CodeGenProvider {
         List<String> protoFiles = new ArrayList<>();
         if (Files.isDirectory(inputDir)) {
             try (Stream<Path> protoFilesPaths = Files.walk(inputDir)) {
-                protoFilesPaths
-                        .filter(Files::isRegularFile)
-                        .filter(s -> s.toString().endsWith(PROTO))
-                        .map(Path::normalize)
-                        .map(Path::toAbsolutePath)
-                        .map(Path::toString)
-                        .forEach(protoFiles::add);
+                protoFiles.addAll(protoFiles(protoFilesPaths.filter(Files::isRegularFile)));
                 protoDirs.add(inputDir.normalize().toAbsolutePath().toString());
             } catch (IOException e) {
                 throw new CodeGenException("Failed to walk inputDir", e);
             }
         }
-        Path dirWithProtosFromDependencies = workDir.resolve("protoc-protos-from-dependencies");
-        Collection<Path> protoFilesFromDependencies = gatherProtosFromDependencies(dirWithProtosFromDependencies, protoDirs,
-                context);
-        if (!protoFilesFromDependencies.isEmpty()) {
-            for (Path files : protoFilesFromDependencies) {
-                var pathToProtoFile = files.normalize().toAbsolutePath();
-                var pathToParentDir = files.getParent();
-                // Add the proto file to the list of proto to compile, but also add the directory containing the
-                // proto file to the list of directories to include (it's a set, so no duplicate).
-                protoFiles.add(pathToProtoFile.toString());
-                protoDirs.add(pathToParentDir.toString());
+        IncrementalState state = null;
+        if (isIncremental(context)) {
+            state = IncrementalState.forOutDir(outDir);
+        } else {
+            IncrementalState.drop(outDir);
+        }
+        String dependencyScanKey = state != null ? dependencyScanKey(context) : null;
+        DependencyScan dependencies = state != null ? state.dependencyScan(dependencyScanKey) : null;
+        if (dependencies == null) {
+            dependencies = scanDependencies(workDir, !protoFiles.isEmpty(), context, report);
+            if (state != null) {
+                state.dependencyScan(dependencyScanKey, dependencies);
             }
+        } else {
+            report.cacheHit("dependency-scan");
         }
+        // the module's own protos come first, the pruning starts from them
+        int ownProtoCount = protoFiles.size();
+        for (Path files : dependencies.protoFiles) {
+            // Add the proto file to the list of proto to compile, the directories containing them are part of
+            // the scan
+            protoFiles.add(files.normalize().toAbsolutePath().toString());
+        }
+        protoDirs.addAll(dependencies.protoDirs);
 
         if (!protoFiles.isEmpty()) {
-            Collection<String> protosToImport = gatherDirectoriesWithImports(workDir.resolve("protoc-dependencies"),
-                    context);
-
-            try (FileSystem fs = ZeroFs.newFileSystem(
-                    Configuration.unix().toBuilder().setAttributeViews("unix").build())) {
-                var workdir = fs.getPath(".");
-                for (String protoDir : protoDirs) {
-                    copyDirectory(Path.of(protoDir), workdir);
+            // the resident workdir of the incremental state outlives the run, only a throwaway one is closed
+            try (FileSystem throwaway = state == null
+                    ? ZeroFs.newFileSystem(Configuration.unix().toBuilder().setAttributeViews("unix").build())
+                    : null) {
+                var workdir = (state == null ? throwaway : state.fileSystem()).getPath(".");
+                long populationStart = System.nanoTime();
+                var population = new GrpcZeroEvents.ZeroFsPopulation();
+                population.begin();
+                Map<String, Path> content = state != null || dependencies.importIndex != null
+                        ? workdirContent(protoDirs, protoFiles, dependencies)
+                        : null;
+                Map<String, Path> lazyImports = Map.of();
+                if (dependencies.importIndex != null) {
+                    long resolutionStart = System.nanoTime();
+                    lazyImports = dependencies.importIndex.resolve(content);
+                    log.debugf("Resolved %d of %d dependency protos from the imports", lazyImports.size(),
+                            dependencies.importIndex.size());
+                    report.phase("import-resolution", resolutionStart);
+                }
+                Set<String> changed = null;
+                if (state != null) {
+                    lazyImports.forEach(content::putIfAbsent);
+                    changed = state.sync(workdir, content, population);
+                } else {
+                    for (String protoDir : protoDirs) {
+                        copyDirectory(Path.of(protoDir), workdir, population);
+                    }
+                    for (String protoImportDir : dependencies.importDirs) {
+                        copyDirectory(Path.of(protoImportDir), workdir, population);
+                    }
+                    for (Map.Entry<String, Path> lazyImport : lazyImports.entrySet()) {
+                        Path target = workdir.resolve(lazyImport.getKey());
+                        if (Files.notExists(target)) {
+                            Files.createDirectories(target.getParent());
+                            population.bytesIn += Files.copy(lazyImport.getValue(), target);
+                            population.fileCount++;
+                        }
+                    }
+                    for (String protoFile : protoFiles) {
+                        try (InputStream is = Files.newInputStream(Path.of(protoFile))) {
+                            population.bytesIn += Files.copy(is,
+                                    workdir.resolve(Path.of(protoFile).getFileName().toString()),
+                                    StandardCopyOption.REPLACE_EXISTING);
+                            population.fileCount++;
+                        }
+                    }
+                    if (!dependencies.descriptorSets.isEmpty()) {
+                        Path descriptorSetInDir = Files.createDirectories(workdir.resolve(DESCRIPTOR_SET_IN_DIR));
+                        for (int i = 0; i < dependencies.descriptorSets.size(); i++) {
+                            population.bytesIn += Files.copy(dependencies.descriptorSets.get(i),
+                                    descriptorSetInDir.resolve(descriptorSetName(i)));
+                            population.fileCount++;
+                        }
+                    }
                 }
-                for (String protoImportDir : protosToImport) {
-                    copyDirectory(Path.of(protoImportDir), workdir);
+                population.commit();
+                report.phase("zerofs-population", populationStart);
+                // the resident protoc-wrapper hears about every change, even if nothing ends up generated
+                DescriptorLoader loader = state != null
+                        ? state.descriptorLoader(workdir, changed, DESCRIPTOR_SET_IN_DIR, isResidentServer(context.config()))
+                        : oneShot(workdir);
+
+                ProtoGraph.Roots roots = new ProtoGraph.Roots();
+                protoDirs.forEach(roots::add);
+                List<String> protoNames = new ArrayList<>();
+                for (String protoFile : protoFiles) {
+                    log.info("resolving proto file: " + protoFile);
+                    var protoName = roots.relativize(protoFile);
+                    log.info("final proto name: " + protoName);
+                    protoNames.add(protoName);
                 }
 
-                DescriptorProtos.FileDescriptorSet.Builder descriptorSetBuilder = DescriptorProtos.FileDescriptorSet
-                        .newBuilder();
-                PluginProtos.CodeGeneratorRequest.Builder requestBuilder = PluginProtos.CodeGeneratorRequest.newBuilder();
+                Map<String, ResolvedDependency> protoArtifacts = new HashMap<>();
+                for (int i = ownProtoCount; i < protoFiles.size(); i++) {
+                    ResolvedDependency artifact = dependencies.protoArtifacts.get(protoFiles.get(i));
+                    if (artifact != null) {
+                        protoArtifacts.putIfAbsent(protoNames.get(i), artifact);
+                    }
+                }
+                if (isPruning(context.config()) && protoNames.size() > ownProtoCount) {
+                    protoNames = prune(loader, protoNames, ownProtoCount, report);
+                }
+                GeneratorSkips skips = new GeneratorSkips();
+                if (!protoArtifacts.isEmpty()) {
+                    protoNames = skipGenerators(context, loader, protoNames, protoArtifacts, skips, report);
+                }
 
-                for (String protoFile : protoFiles) {
-                    try (InputStream is = Files.newInputStream(Path.of(protoFile))) {
-                        Files.copy(is, workdir.resolve(Path.of(protoFile).getFileName().toString()),
-                                StandardCopyOption.REPLACE_EXISTING);
+                List<String> toGenerate = protoNames;
+                if (state != null) {
+                    toGenerate = state.toGenerate(protoNames, changed, DESCRIPTOR_SET_IN_DIR);
+                    if (toGenerate.isEmpty()) {
+                        log.info("Grpc Zero: generated sources are up to date");
+                        state.generated(List.of(), List.of());
+                        // the report of the previous run would be left behind
+                        writeReport(context, report);
+                        return false;
+                    }
+                    if (toGenerate.size() < protoNames.size()) {
+                        log.info("Grpc Zero: regenerating " + toGenerate.size() + " of " + protoNames.size()
+                                + " proto files");
                     }
+                }
 
-                    log.info("resolving proto file: " + protoFile);
-                    var protoName = realitivizeProtoFile(protoFile, protoDirs);
-                    log.info("final proto name: " + protoName);
+                OptimizeForOverride optimizeFor = OptimizeForOverride.of(context.config(), protoArtifacts);
+                MultipleFilesOverride multipleFiles = MultipleFilesOverride.of(context.config(), protoNames.stream()
+                        .filter(protoName -> !skips.skips(GeneratorSkips.JAVA, protoName))
+                        .collect(Collectors.toList()));
+                UnaryOperator<PluginProtos.CodeGeneratorRequest> overrides = request -> multipleFiles
+                        .apply(optimizeFor.apply(request));
+                if (isLowMemory(context.config())) {
+                    generateInChunks(context, workdir, toGenerate, skips, overrides, report);
+                } else {
+                    generate(context, workdir, loader, toGenerate, state != null ? state.descriptors() : new HashMap<>(),
+                            skips, overrides, report);
+                }
+
+                long postprocessingStart = System.nanoTime();
+                if (toGenerate.size() < protoNames.size()) {
+                    postprocessing(context, outDir, report.outputs());
+                } else {
+                    postprocessing(context, outDir, null);
+                }
+                report.phase("post-processing", postprocessingStart);
+                List<String> largeOutputs = report.outputsLargerThan(LARGE_OUTPUT_BYTES);
+                if (!largeOutputs.isEmpty()) {
+                    log.infof("Grpc Zero: %s are larger than %d KiB and compiled on a single javac thread each, see %s",
+                            largeOutputs, LARGE_OUTPUT_BYTES / 1024, MultipleFilesOverride.PACKAGES);
+                }
+                log.info("Grpc Zero: Successfully finished generating and post-processing sources from proto files");
 
-                    descriptorSetBuilder.addAllFile(getDescriptor(workdir, protoName).getFileList());
-                    requestBuilder.addFileToGenerate(protoName);
+                if (state != null) {
+                    state.generated(toGenerate, report.outputs());
                 }
 
-                // Load the previously generated descriptor
-                DescriptorProtos.FileDescriptorSet descriptorSet = descriptorSetBuilder.build();
+                writeReport(context, report);
 
-                // Add all FileDescriptorProto entries from the descriptor set
-                // and all from dependencies
-                resolveDependencies(workdir, descriptorSet, requestBuilder);
+                return true;
+            } catch (IOException e) {
+                throw new CodeGenException("Failed to generate files from proto file in " + inputDir.toAbsolutePath(), e);
+            }
+        }
 
-                PluginProtos.CodeGeneratorRequest codeGeneratorRequest = requestBuilder.build();
+        return false;
+    }
 
-                // protoc based plugins
-                List<String> availablePlugins = new ArrayList<>();
-                availablePlugins.add("java");
-                availablePlugins.add("grpc-java");
+    private void writeReport(CodeGenContext context, GrpcZeroReport report) throws IOException {
+        if (shouldGenerateReport(context.config())) {
+            Path reportFile = getReportOutputFile(context);
+            report.write(reportFile);
+            log.info("Grpc Zero: codegen report written to " + reportFile);
+        }
+    }
 
-                for (String pluginName : availablePlugins) {
-                    log.info("Running grpc plugin " + pluginName);
-                    PluginProtos.CodeGeneratorResponse response = runNativePlugin(pluginName, codeGeneratorRequest, workdir);
+    /**
+     * @param walk the files of the input directory, in the order of the file system
+     * @return the absolute paths of the proto files, sorted: the walk order depends on the file system, the generated
+     *         files must not
+     */
+    static List<String> protoFiles(Stream<Path> walk) {
+        return walk.filter(s -> s.toString().endsWith(PROTO))
+                .map(Path::normalize)
+                .map(Path::toAbsolutePath)
+                .map(Path::toString)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Extracts what the configured dependencies contribute: protos to generate, directories of protos to import and
+     * prebuilt descriptor sets. Imports are only looked for when there is something to generate.
+     */
+    private DependencyScan scanDependencies(Path workDir, boolean hasProtoFiles, CodeGenContext context,
+            GrpcZeroReport report) throws CodeGenException {
+        Path dirWithProtosFromDependencies = workDir.resolve("protoc-protos-from-dependencies");
+        long scanStart = System.nanoTime();
+        ArtifactIndex index = ArtifactIndex.forBuild(workDir, context.config());
+        Set<String> protoDirs = new LinkedHashSet<>();
+        Map<String, ResolvedDependency> protoArtifacts = new HashMap<>();
+        Collection<Path> protoFilesFromDependencies = gatherProtosFromDependencies(dirWithProtosFromDependencies, protoDirs,
+                protoArtifacts, context, index, report);
+        for (Path files : protoFilesFromDependencies) {
+            // the directory containing the proto file is added to the list of directories to include (it's a set,
+            // so no duplicate).
+            protoDirs.add(files.getParent().toString());
+        }
+        report.phase("dependency-scan", scanStart);
+
+        Collection<String> protosToImport = List.of();
+        ImportIndex importIndex = null;
+        List<Path> descriptorSetsToImport = List.of();
+        if (hasProtoFiles || !protoFilesFromDependencies.isEmpty()) {
+            long importScanStart = System.nanoTime();
+            if (isLazyImports(context.config())) {
+                importIndex = gatherImportIndex(workDir.resolve("protoc-dependencies"), context, index, report);
+            } else {
+                protosToImport = gatherDirectoriesWithImports(workDir.resolve("protoc-dependencies"), context, index,
+                        report);
+            }
+            descriptorSetsToImport = gatherDescriptorSetsFromDependencies(workDir.resolve("protoc-descriptor-sets"),
+                    context, index, report);
+            report.phase("dependency-scan", importScanStart);
+        }
+        index.save();
+        return new DependencyScan(protoFilesFromDependencies, protoDirs, protoArtifacts, protosToImport, importIndex,
+                descriptorSetsToImport);
+    }
+
+    /**
+     * Dependencies are rescanned when their coordinates, their files or the grpc configuration change.
+     */
+    private static String dependencyScanKey(CodeGenContext context) {
+        StringBuilder key = new StringBuilder();
+        List<String> properties = new ArrayList<>();
+        for (String property : context.config().getPropertyNames()) {
+            if (property.startsWith("quarkus.generate-code.grpc.")) {
+                properties.add(property);
+            }
+        }
+        Collections.sort(properties);
+        for (String property : properties) {
+            key.append(property).append('=')
+                    .append(context.config().getOptionalValue(property, String.class).orElse("")).append('\n');
+        }
+        for (ResolvedDependency artifact : context.applicationModel().getRuntimeDependencies()) {
+            key.append(artifact.toCompactCoords());
+            for (Path path : artifact.getResolvedPaths()) {
+                key.append(' ').append(path);
+                if (Files.isRegularFile(path)) {
+                    try {
+                        key.append('@').append(Files.getLastModifiedTime(path).toMillis());
+                    } catch (IOException e) {
+                        // rescanned next time
+                        key.append('@').append(System.nanoTime());
+                    }
+                }
+            }
+            key.append('\n');
+        }
+        return HashUtil.sha1(key.toString());
+    }
+
+    /**
+     * Drops the protos of the dependencies that the module's own protos don't use, see {@link ProtoPruning}.
+     *
+     * @param protoNames the module's own protos, then the protos of the dependencies
+     */
+    private static List<String> prune(DescriptorLoader loader, List<String> protoNames, int ownProtoCount,
+            GrpcZeroReport report) throws CodeGenException {
+        if (ownProtoCount == 0) {
+            log.warn("Grpc Zero: nothing to prune from, the module has no proto files of its own");
+            return protoNames;
+        }
+        long pruningStart = System.nanoTime();
+        List<String> own = protoNames.subList(0, ownProtoCount);
+        // everything the own protos can use is part of their import closure
+        Set<String> reachable = ProtoPruning.reachableFiles(importClosure(loader, own, report), own);
+        List<String> pruned = new ArrayList<>(own);
+        for (String protoName : protoNames.subList(ownProtoCount, protoNames.size())) {
+            if (reachable.contains(protoName)) {
+                pruned.add(protoName);
+            }
+        }
+        log.info("Grpc Zero: generating " + (pruned.size() - ownProtoCount) + " of "
+                + (protoNames.size() - ownProtoCount) + " proto files from dependencies, the others are not used");
+        report.phase("pruning", pruningStart);
+        return pruned;
+    }
+
+    /**
+     * @return the descriptors of the files and of everything they import, directly or not; the loader only returns
+     *         the files it is asked for
+     */
+    private static Collection<DescriptorProtos.FileDescriptorProto> importClosure(DescriptorLoader loader,
+            List<String> protoNames, GrpcZeroReport report) throws CodeGenException {
+        Map<String, DescriptorProtos.FileDescriptorProto> closure = new LinkedHashMap<>();
+        Set<String> requested = new HashSet<>(protoNames);
+        List<String> toLoad = protoNames;
+        while (!toLoad.isEmpty()) {
+            List<String> imports = new ArrayList<>();
+            for (DescriptorProtos.FileDescriptorProto file : loader.load(toLoad, false, report).getFileList()) {
+                if (closure.putIfAbsent(file.getName(), file) == null) {
+                    for (String dependency : file.getDependencyList()) {
+                        if (requested.add(dependency)) {
+                            imports.add(dependency);
+                        }
+                    }
+                }
+            }
+            toLoad = imports;
+        }
+        return closure.values();
+    }
 
-                    writeResultToDisk(response.getFileList(), outDir);
+    /**
+     * Finds which generators must leave out which protos of the dependencies: the ones configured with
+     * {@code scan-for-proto-skip}, and the ones whose classes the artifact of the proto already contains.
+     *
+     * @param skips filled with the generators to skip by proto
+     * @return the protos still to generate, without the ones no generator has to process
+     */
+    private List<String> skipGenerators(CodeGenContext context, DescriptorLoader loader, List<String> protoNames,
+            Map<String, ResolvedDependency> protoArtifacts, GeneratorSkips skips, GrpcZeroReport report)
+            throws CodeGenException {
+        Config config = context.config();
+        boolean detectCompiled = config.getOptionalValue(SKIP_COMPILED_PROTOS, Boolean.class).orElse(TRUE);
+        boolean kotlin = shouldGenerateKotlin(config);
+        List<String> dependencyProtos = protoNames.stream().filter(protoArtifacts::containsKey)
+                .collect(Collectors.toList());
+        if (dependencyProtos.isEmpty()) {
+            return protoNames;
+        }
+        long start = System.nanoTime();
+        Map<String, DescriptorProtos.FileDescriptorProto> descriptors = new HashMap<>();
+        for (DescriptorProtos.FileDescriptorProto file : loader.load(dependencyProtos, false, report).getFileList()) {
+            descriptors.putIfAbsent(file.getName(), file);
+        }
+        Map<ResolvedDependency, OpenPathTree> trees = new HashMap<>();
+        try {
+            for (String protoName : dependencyProtos) {
+                ResolvedDependency artifact = protoArtifacts.get(protoName);
+                String packageId = String.format("%s:%s", artifact.getGroupId(), artifact.getArtifactId());
+                List<String> configured = listProperty(config,
+                        String.format(SCAN_DEPENDENCIES_FOR_PROTO_SKIP_PATTERN, packageId));
+                for (String generator : configured) {
+                    if (!GeneratorSkips.GENERATORS.contains(generator)) {
+                        log.warnf("Unknown generator %s in %s, expected one of %s", generator,
+                                String.format(SCAN_DEPENDENCIES_FOR_PROTO_SKIP_PATTERN, packageId),
+                                GeneratorSkips.GENERATORS);
+                    }
                 }
+                skips.skip(protoName, configured);
+                DescriptorProtos.FileDescriptorProto descriptor = descriptors.get(protoName);
+                if (detectCompiled && descriptor != null) {
+                    OpenPathTree classes = trees.computeIfAbsent(artifact, a -> a.getContentTree().open());
+                    List<String> compiled = GeneratorSkips.compiledGenerators(descriptor, classes);
+                    if (!compiled.isEmpty()) {
+                        log.debugf("%s already contains the %s classes of %s", artifact.toCompactCoords(), compiled,
+                                protoName);
+                        skips.skip(protoName, compiled);
+                    }
+                }
+            }
+        } finally {
+            for (OpenPathTree tree : trees.values()) {
+                try {
+                    tree.close();
+                } catch (IOException e) {
+                    log.debugf(e, "Failed to close %s", tree);
+                }
+            }
+        }
 
-                log.info("Running MutinyGrpcGenerator plugin");
-                List<PluginProtos.CodeGeneratorResponse.File> mutinyResponse = new MutinyGrpcGenerator()
-                        .generateFiles(codeGeneratorRequest);
+        List<String> toGenerate = new ArrayList<>();
+        for (String protoName : protoNames) {
+            DescriptorProtos.FileDescriptorProto descriptor = descriptors.get(protoName);
+            if (descriptor != null && skips.skipsEntirely(descriptor, kotlin)) {
+                log.info("Grpc Zero: " + protoName + " is already compiled in " + protoArtifacts.get(protoName)
+                        .toCompactCoords() + " or skipped, using it as an import only");
+            } else {
+                toGenerate.add(protoName);
+            }
+        }
+        report.phase("generator-skips", start);
+        return toGenerate;
+    }
 
-                writeResultToDisk(mutinyResponse, outDir);
+    /**
+     * Lists what the in-memory workdir is made of, in the same order as the copies of a non incremental run so that
+     * the same file wins when two sources provide the same path.
+     *
+     * @return the source of every file of the workdir, by path relative to the workdir
+     */
+    private static Map<String, Path> workdirContent(Set<String> protoDirs, List<String> protoFiles,
+            DependencyScan dependencies) throws IOException {
+        Map<String, Path> content = new LinkedHashMap<>();
+        List<String> directories = new ArrayList<>(protoDirs);
+        directories.addAll(dependencies.importDirs);
+        for (String directory : directories) {
+            Path source = Path.of(directory);
+            Map<String, Path> files = new TreeMap<>();
+            Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    return Files.isSymbolicLink(dir) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+                }
 
-                if (shouldGenerateKotlin(context.config())) {
-                    log.info("Running KotlinGenerator plugin");
-                    ByteArrayInputStream input = new ByteArrayInputStream(codeGeneratorRequest.toByteArray());
-                    ByteArrayOutputStream output = new ByteArrayOutputStream();
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    files.put(source.relativize(file).toString().replace("\\", "/"), file);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            content.putAll(files);
+        }
+        for (String protoFile : protoFiles) {
+            Path path = Path.of(protoFile);
+            content.put(path.getFileName().toString(), path);
+        }
+        for (int i = 0; i < dependencies.descriptorSets.size(); i++) {
+            content.put(DESCRIPTOR_SET_IN_DIR + "/" + descriptorSetName(i), dependencies.descriptorSets.get(i));
+        }
+        return content;
+    }
+
+    // the order of the inputs decides which definition wins when two sets disagree
+    private static String descriptorSetName(int index) {
+        return String.format("%05d.binpb", index);
+    }
+
+    /**
+     * @param loader parses the files of {@code workdir}
+     * @param descriptors descriptors already parsed, completed with the ones parsed to build the request
+     * @param overrides the file options the generators see instead of the declared ones, see
+     *        {@link OptimizeForOverride} and {@link MultipleFilesOverride}
+     */
+    private void generate(CodeGenContext context, Path workdir, DescriptorLoader loader, List<String> protoNames,
+            Map<String, DescriptorProtos.FileDescriptorProto> descriptors, GeneratorSkips skips,
+            UnaryOperator<PluginProtos.CodeGeneratorRequest> overrides, GrpcZeroReport report)
+            throws CodeGenException, IOException {
+        Path outDir = context.outDir();
+        PluginProtos.CodeGeneratorRequest codeGeneratorRequest = buildRequest(loader, protoNames, descriptors, report);
+        // the descriptor sets describe the protos as declared
+        PluginProtos.CodeGeneratorRequest generatorRequest = overrides.apply(codeGeneratorRequest);
+
+        // protoc based plugins
+        List<String> availablePlugins = new ArrayList<>();
+        availablePlugins.add("java");
+        availablePlugins.add("grpc-java");
+
+        boolean lite = isLite(context.config());
+        for (String pluginName : availablePlugins) {
+            var pluginRequest = skips.forGenerator(pluginName, generatorRequest);
+            if (pluginRequest.getFileToGenerateCount() == 0) {
+                continue;
+            }
+            if (lite) {
+                pluginRequest = liteRequest(pluginRequest);
+            }
+            log.info("Running grpc plugin " + pluginName);
+            long pluginStart = System.nanoTime();
+            var pluginRun = beginPluginRun(pluginName, pluginRequest);
+            PluginProtos.CodeGeneratorResponse response = runNativePlugin(pluginName, pluginRequest, workdir,
+                    report);
+            commitPluginRun(pluginRun, response.getFileList());
+            report.generator(pluginName, pluginStart, response.getFileList());
+
+            writeResultToDisk(response.getFileList(), outDir, report);
+        }
+
+        var mutinyRequest = skips.forGenerator(GeneratorSkips.MUTINY, generatorRequest);
+        if (mutinyRequest.getFileToGenerateCount() > 0) {
+            runMutinyGenerator(mutinyRequest, lite, outDir, report);
+        }
+
+        var kotlinRequest = skips.forGenerator(GeneratorSkips.KOTLIN, generatorRequest);
+        if (shouldGenerateKotlin(context.config()) && kotlinRequest.getFileToGenerateCount() > 0) {
+            log.info("Running KotlinGenerator plugin");
+            long kotlinStart = System.nanoTime();
+            var kotlinRun = beginPluginRun("kotlin", kotlinRequest);
+            ByteArrayInputStream input = new ByteArrayInputStream(kotlinRequest.toByteArray());
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+            GeneratorRunner.INSTANCE.mainAsProtocPlugin(input, output);
+
+            var response = PluginProtos.CodeGeneratorResponse.parseFrom(output.toByteArray());
+            commitPluginRun(kotlinRun, response.getFileList());
+            report.generator("kotlin", kotlinStart, response.getFileList());
+
+            writeResultToDisk(response.getFileList(), outDir, report);
+        }
+
+        if (shouldGenerateDescriptorSet(context.config())) {
+            try (var descriptorSet = new DescriptorSetWriter(getDescriptorSetOutputFile(context))) {
+                descriptorSet.addAll(codeGeneratorRequest.getSourceFileDescriptorsList());
+            }
+        }
+
+        if (shouldPublishDescriptorSet(context)) {
+            try (var bundle = new DescriptorSetWriter(getPublishedDescriptorSetFile(context))) {
+                bundle.addAll(codeGeneratorRequest.getProtoFileList());
+            }
+        }
+    }
 
-                    GeneratorRunner.INSTANCE.mainAsProtocPlugin(input, output);
+    /**
+     * Bounded-memory variant of {@link #generate}: the files to generate are processed in chunks, each with a request
+     * holding only the chunk and its imports. The requests and the plugin outputs are spilled to the work directory and
+     * the generated files are streamed to disk one at a time, so nothing of a chunk is left on the heap once it has
+     * been written.
+     */
+    private void generateInChunks(CodeGenContext context, Path workdir, List<String> protoNames, GeneratorSkips skips,
+            UnaryOperator<PluginProtos.CodeGeneratorRequest> overrides, GrpcZeroReport report)
+            throws CodeGenException, IOException {
+        Path outDir = context.outDir();
+        int chunkSize = getLowMemoryChunkSize(context.config());
+        boolean generateKotlin = shouldGenerateKotlin(context.config());
+        boolean lite = isLite(context.config());
+        Path spillDir = Files.createDirectories(context.workDir().resolve("grpc-zero-spill"));
+        Path requestFile = spillDir.resolve("request.binpb");
+        Path responseFile = spillDir.resolve("response.binpb");
+
+        try (var descriptorSet = shouldGenerateDescriptorSet(context.config())
+                ? new DescriptorSetWriter(getDescriptorSetOutputFile(context))
+                : null;
+                var bundle = shouldPublishDescriptorSet(context)
+                        ? new DescriptorSetWriter(getPublishedDescriptorSetFile(context))
+                        : null) {
+            for (int from = 0; from < protoNames.size(); from += chunkSize) {
+                List<String> chunk = protoNames.subList(from, Math.min(from + chunkSize, protoNames.size()));
+                log.infof("Generating proto files %d to %d of %d", from + 1, from + chunk.size(), protoNames.size());
+
+                PluginProtos.CodeGeneratorRequest codeGeneratorRequest = buildRequest(oneShot(workdir), chunk,
+                        new HashMap<>(), report);
+                PluginProtos.CodeGeneratorRequest generatorRequest = overrides.apply(codeGeneratorRequest);
+                try (OutputStream out = Files.newOutputStream(requestFile)) {
+                    generatorRequest.writeTo(out);
+                }
+                if (descriptorSet != null) {
+                    descriptorSet.addAll(codeGeneratorRequest.getSourceFileDescriptorsList());
+                }
+                if (bundle != null) {
+                    bundle.addAll(codeGeneratorRequest.getProtoFileList());
+                }
 
-                    var response = PluginProtos.CodeGeneratorResponse.parseFrom(output.toByteArray());
+                // the request file holds the full request unless a generator skips some of the files
+                PluginProtos.CodeGeneratorRequest written = generatorRequest;
+                for (String pluginName : List.of("java", "grpc-java")) {
+                    var pluginRequest = skips.forGenerator(pluginName, generatorRequest);
+                    if (pluginRequest.getFileToGenerateCount() == 0) {
+                        continue;
+                    }
+                    if (lite) {
+                        pluginRequest = liteRequest(pluginRequest);
+                    }
+                    written = rewriteRequest(requestFile, written, pluginRequest);
+                    log.info("Running grpc plugin " + pluginName);
+                    long pluginStart = System.nanoTime();
+                    var pluginRun = beginPluginRun(pluginName, pluginRequest);
+                    runNativePlugin(pluginName, requestFile, responseFile, workdir, report);
+                    streamResultToDisk(pluginName, pluginStart, pluginRun, responseFile, outDir, report);
+                }
 
-                    writeResultToDisk(response.getFileList(), outDir);
+                var mutinyRequest = skips.forGenerator(GeneratorSkips.MUTINY, generatorRequest);
+                if (mutinyRequest.getFileToGenerateCount() > 0) {
+                    runMutinyGenerator(mutinyRequest, lite, outDir, report);
                 }
 
-                if (shouldGenerateDescriptorSet(context.config())) {
-                    Files.write(getDescriptorSetOutputFile(context), descriptorSet.toByteArray());
+                var kotlinRequest = skips.forGenerator(GeneratorSkips.KOTLIN, generatorRequest);
+                if (generateKotlin && kotlinRequest.getFileToGenerateCount() > 0) {
+                    written = rewriteRequest(requestFile, written, kotlinRequest);
+                    log.info("Running KotlinGenerator plugin");
+                    long kotlinStart = System.nanoTime();
+                    var kotlinRun = beginPluginRun("kotlin", kotlinRequest);
+                    try (InputStream input = Files.newInputStream(requestFile);
+                            OutputStream output = Files.newOutputStream(responseFile)) {
+                        GeneratorRunner.INSTANCE.mainAsProtocPlugin(input, output);
+                    }
+                    streamResultToDisk("kotlin", kotlinStart, kotlinRun, responseFile, outDir, report);
                 }
+            }
+        } finally {
+            Files.deleteIfExists(requestFile);
+            Files.deleteIfExists(responseFile);
+        }
+    }
 
-                postprocessing(context, outDir);
-                log.info("Grpc Zero: Successfully finished generating and post-processing sources from proto files");
+    /**
+     * The request for the java or grpc-java generator of protoc-wrapper, set to generate for the lite runtime like
+     * {@code protoc --java_out=lite:}.
+     */
+    static PluginProtos.CodeGeneratorRequest liteRequest(PluginProtos.CodeGeneratorRequest request) {
+        return request.toBuilder().setParameter("lite").build();
+    }
 
-                return true;
-            } catch (IOException e) {
-                throw new CodeGenException("Failed to generate files from proto file in " + inputDir.toAbsolutePath(), e);
+    /**
+     * The Mutiny stubs take their method descriptors from the grpc-java classes, which already use the lite
+     * marshallers. Anything referring to the full runtime marshallers is moved to the lite ones, which
+     * {@code grpc-protobuf-lite} provides with or without {@code protobuf-java}.
+     */
+    static PluginProtos.CodeGeneratorResponse.File liteMarshallers(PluginProtos.CodeGeneratorResponse.File file) {
+        if (!file.getContent().contains(PROTO_UTILS)) {
+            return file;
+        }
+        return file.toBuilder().setContent(file.getContent().replace(PROTO_UTILS, PROTO_LITE_UTILS)).build();
+    }
+
+    /**
+     * Spills {@code request} to the request file, unless that's what it already holds.
+     *
+     * @return what the request file holds
+     */
+    private static PluginProtos.CodeGeneratorRequest rewriteRequest(Path requestFile,
+            PluginProtos.CodeGeneratorRequest written, PluginProtos.CodeGeneratorRequest request) throws IOException {
+        if (request != written) {
+            try (OutputStream out = Files.newOutputStream(requestFile)) {
+                request.writeTo(out);
             }
         }
+        return request;
+    }
+
+    /**
+     * Parses the files to generate, with their comments, and builds the request holding them and all their imports.
+     *
+     * @param descriptors descriptors already parsed, imports found there are not parsed again; completed with the
+     *        descriptors parsed here
+     */
+    private static PluginProtos.CodeGeneratorRequest buildRequest(DescriptorLoader loader, List<String> protoNames,
+            Map<String, DescriptorProtos.FileDescriptorProto> descriptors, GrpcZeroReport report)
+            throws CodeGenException {
+        DescriptorProtos.FileDescriptorSet.Builder descriptorSetBuilder = DescriptorProtos.FileDescriptorSet
+                .newBuilder();
+        PluginProtos.CodeGeneratorRequest.Builder requestBuilder = PluginProtos.CodeGeneratorRequest.newBuilder();
+
+        long descriptorsStart = System.nanoTime();
+        for (String protoName : protoNames) {
+            long descriptorStart = System.nanoTime();
+            var protoDescriptorSet = loader.load(List.of(protoName), true, report);
+            report.descriptor(protoName, descriptorStart, protoDescriptorSet.getFileCount(),
+                    protoDescriptorSet.getSerializedSize());
+            descriptorSetBuilder.addAllFile(protoDescriptorSet.getFileList());
+            requestBuilder.addFileToGenerate(protoName);
+        }
+        report.phase("descriptors", descriptorsStart);
 
-        return false;
+        // Add all FileDescriptorProto entries from the descriptor set
+        // and all from dependencies
+        long resolveStart = System.nanoTime();
+        resolveDependencies(loader, descriptorSetBuilder.build(), requestBuilder, descriptors, report);
+        report.phase("resolve-dependencies", resolveStart);
+
+        return requestBuilder.build();
+    }
+
+    /**
+     * @param lite whether the messages are generated for the lite runtime
+     */
+    private static void runMutinyGenerator(PluginProtos.CodeGeneratorRequest codeGeneratorRequest, boolean lite,
+            Path outDir, GrpcZeroReport report) throws IOException {
+        log.info("Running MutinyGrpcGenerator plugin");
+        long mutinyStart = System.nanoTime();
+        var mutinyRun = beginPluginRun("mutiny", codeGeneratorRequest);
+        List<PluginProtos.CodeGeneratorResponse.File> mutinyResponse = new MutinyGrpcGenerator()
+                .generateFiles(codeGeneratorRequest);
+        if (lite) {
+            mutinyResponse = mutinyResponse.stream().map(GrpcZeroCodeGen::liteMarshallers).collect(Collectors.toList());
+        }
+        commitPluginRun(mutinyRun, mutinyResponse);
+        report.generator("mutiny", mutinyStart, mutinyResponse);
+
+        writeResultToDisk(mutinyResponse, outDir, report);
     }
 
     public static boolean isInSubtree(Path baseDir, Path candidate) {
@@ -255,72 +923,187 @@ public class GrpcZeroCodeGen implements CodeGenProvider {
         return cand.startsWith(base);
     }
 
-    // TODO: verify is all this dance can be simplified somehow ...
-    private static String realitivizeProtoFile(String protoFile, Set<String> protoDir) {
-        Path protoFilePath = Path.of(protoFile);
-        for (String dir : protoDir) {
-            try {
-                if (isInSubtree(Path.of(dir), protoFilePath)) {
-                    Path base = Path.of(dir).toAbsolutePath().normalize();
-                    Path file = protoFilePath.toAbsolutePath().normalize();
-                    return base.relativize(file).toString();
-                }
-            } catch (IllegalArgumentException e) {
-                // cannot be relativized, skip
+    private static GrpcZeroEvents.PluginRun beginPluginRun(String pluginName,
+            PluginProtos.CodeGeneratorRequest codeGeneratorRequest) {
+        var event = new GrpcZeroEvents.PluginRun();
+        if (event.isEnabled()) {
+            event.plugin = pluginName;
+            event.bytesIn = codeGeneratorRequest.getSerializedSize();
+        }
+        event.begin();
+        return event;
+    }
+
+    private static void commitPluginRun(GrpcZeroEvents.PluginRun event,
+            List<PluginProtos.CodeGeneratorResponse.File> responseFileList) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.fileCount = responseFileList.size();
+            for (PluginProtos.CodeGeneratorResponse.File file : responseFileList) {
+                event.bytesOut += file.getContentBytes().size();
             }
+            event.commit();
         }
-        return protoFilePath.getFileName().toString();
     }
 
-    private static void writeResultToDisk(List<PluginProtos.CodeGeneratorResponse.File> responseFileList, Path outDir)
-            throws IOException {
+    private static void commitPluginRun(GrpcZeroEvents.PluginRun event, int fileCount, long bytesOut) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.fileCount = fileCount;
+            event.bytesOut = bytesOut;
+            event.commit();
+        }
+    }
+
+    private static void writeResultToDisk(List<PluginProtos.CodeGeneratorResponse.File> responseFileList, Path outDir,
+            GrpcZeroReport report) throws IOException {
+        long start = System.nanoTime();
+        var event = new GrpcZeroEvents.DiskWrite();
+        event.begin();
         for (PluginProtos.CodeGeneratorResponse.File file : responseFileList) {
-            Path outputPath = outDir.resolve(file.getName());
-            // TODO: add a check when hitting root?
-            Files.createDirectories(outputPath.getParent());
-            log.info("grpc file generated: " + outputPath);
-            Files.writeString(outputPath, file.getContent());
+            writeFile(file, outDir, report);
+            event.fileCount++;
+            event.bytesOut += file.getContentBytes().size();
         }
+        event.commit();
+        report.phase("disk-write", start);
     }
 
-    private static ImportMemory getDefaultMemory() {
-        return new ImportMemory(
-                "env",
-                "memory",
-                new ByteArrayMemory(
-                        new MemoryLimits(10, MemoryLimits.MAX_PAGES, true)));
+    /**
+     * Writes the files of a serialized CodeGeneratorResponse while reading it, one file at a time, and commits the
+     * plugin run: the response itself is never materialized.
+     */
+    private static void streamResultToDisk(String pluginName, long pluginStart, GrpcZeroEvents.PluginRun pluginRun,
+            Path responseFile, Path outDir, GrpcZeroReport report) throws IOException {
+        long start = System.nanoTime();
+        var event = new GrpcZeroEvents.DiskWrite();
+        event.begin();
+        try (InputStream is = Files.newInputStream(responseFile)) {
+            CodedInputStream input = CodedInputStream.newInstance(is);
+            for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+                if (WireFormat.getTagFieldNumber(tag) == PluginProtos.CodeGeneratorResponse.FILE_FIELD_NUMBER) {
+                    var file = input.readMessage(PluginProtos.CodeGeneratorResponse.File.parser(),
+                            ExtensionRegistryLite.getEmptyRegistry());
+                    writeFile(file, outDir, report);
+                    event.fileCount++;
+                    event.bytesOut += file.getContentBytes().size();
+                } else {
+                    input.skipField(tag);
+                }
+            }
+        }
+        event.commit();
+        report.phase("disk-write", start);
+        commitPluginRun(pluginRun, event.fileCount, event.bytesOut);
+        report.generator(pluginName, pluginStart, event.fileCount, event.bytesOut);
     }
 
-    private static void resolveDependencies(Path workdir,
-            DescriptorProtos.FileDescriptorSet descriptorSet, PluginProtos.CodeGeneratorRequest.Builder requestBuilder)
-            throws CodeGenException {
-        resolveDependencies(workdir, descriptorSet, requestBuilder, new ArrayList<>());
+    private static void writeFile(PluginProtos.CodeGeneratorResponse.File file, Path outDir, GrpcZeroReport report)
+            throws IOException {
+        Path outputPath = outDir.resolve(file.getName());
+        // TODO: add a check when hitting root?
+        Files.createDirectories(outputPath.getParent());
+        log.info("grpc file generated: " + outputPath);
+        Files.writeString(outputPath, file.getContent());
+        report.output(outputPath, file.getName(), file.getContentBytes().size());
     }
 
-    // TODO: this might be expensive, we should probably push the logic down to cpp
-    private static void resolveDependencies(Path workdir,
+    /**
+     * Adds the descriptors of {@code descriptorSet} and of all their imports to the request, dependencies first.
+     * Only the files to generate keep their comments and are added to {@code source_file_descriptors}, the
+     * generators never look at the source info of the other files.
+     */
+    static void resolveDependencies(Path workdir,
             DescriptorProtos.FileDescriptorSet descriptorSet, PluginProtos.CodeGeneratorRequest.Builder requestBuilder,
-            List<String> visited)
+            GrpcZeroReport report)
             throws CodeGenException {
+        resolveDependencies(oneShot(workdir), descriptorSet, requestBuilder, new HashMap<>(), report);
+    }
+
+    /**
+     * @param known descriptors already parsed, imports found there are not parsed again; the descriptors of
+     *        {@code descriptorSet} and of the imports parsed on the way are added to it, files to generate with their
+     *        comments only
+     */
+    private static void resolveDependencies(DescriptorLoader loader, DescriptorProtos.FileDescriptorSet descriptorSet,
+            PluginProtos.CodeGeneratorRequest.Builder requestBuilder,
+            Map<String, DescriptorProtos.FileDescriptorProto> known, GrpcZeroReport report) throws CodeGenException {
         for (DescriptorProtos.FileDescriptorProto fileDescriptor : descriptorSet.getFileList()) {
+            known.put(fileDescriptor.getName(), withCommentsOnly(fileDescriptor));
+        }
+        Set<String> filesToGenerate = new HashSet<>(requestBuilder.getFileToGenerateList());
+        Map<String, DescriptorProtos.FileDescriptorProto> files = new HashMap<>();
+        ProtoGraph graph = new ProtoGraph();
+        Deque<DescriptorProtos.FileDescriptorProto> pending = new ArrayDeque<>(descriptorSet.getFileList());
+        while (!pending.isEmpty()) {
+            DescriptorProtos.FileDescriptorProto fileDescriptor = pending.poll();
+            if (files.putIfAbsent(fileDescriptor.getName(), fileDescriptor) != null) {
+                continue;
+            }
             log.info("adding descriptor: " + fileDescriptor.getName());
+            graph.add(fileDescriptor.getName(), fileDescriptor.getDependencyList());
             for (String dep : fileDescriptor.getDependencyList()) {
-                if (!visited.contains(dep)) {
+                if (files.containsKey(dep)) {
+                    report.cacheHit("dependency-descriptors");
+                } else if (known.containsKey(dep)) {
+                    // a file to generate imported by another one, or parsed by a previous run
+                    report.cacheHit("dependency-descriptors");
+                    pending.add(known.get(dep));
+                } else {
                     log.info("Getting dependency descriptor for: " + dep);
-                    var depFdSet = getDescriptor(workdir, dep);
-                    resolveDependencies(workdir, depFdSet, requestBuilder, visited);
-                    visited.add(dep);
+                    report.cacheMiss("dependency-descriptors");
+                    long start = System.nanoTime();
+                    var depFdSet = loader.load(List.of(dep), false, report);
+                    report.descriptor(dep, start, depFdSet.getFileCount(), depFdSet.getSerializedSize());
+                    for (DescriptorProtos.FileDescriptorProto depFile : depFdSet.getFileList()) {
+                        known.putIfAbsent(depFile.getName(), depFile);
+                    }
+                    pending.addAll(depFdSet.getFileList());
                 }
             }
-            if (!visited.contains(fileDescriptor.getName())) {
+        }
+
+        List<String> roots = descriptorSet.getFileList().stream()
+                .map(DescriptorProtos.FileDescriptorProto::getName)
+                .collect(Collectors.toList());
+        for (String name : graph.topologicalOrder(roots)) {
+            DescriptorProtos.FileDescriptorProto fileDescriptor = files.get(name);
+            if (filesToGenerate.contains(name)) {
+                var withComments = withCommentsOnly(fileDescriptor);
+                requestBuilder.addProtoFile(withComments);
+                requestBuilder.addSourceFileDescriptors(withComments);
+            } else if (fileDescriptor.hasSourceCodeInfo()) {
+                requestBuilder.addProtoFile(fileDescriptor.toBuilder().clearSourceCodeInfo());
+            } else {
                 requestBuilder.addProtoFile(fileDescriptor);
-                requestBuilder.addSourceFileDescriptors(fileDescriptor);
-                visited.add(fileDescriptor.getName());
             }
         }
     }
 
+    /**
+     * The generators only use the source info for the doc comments of the generated classes, so the locations
+     * without comments, which are the vast majority, are dropped.
+     */
+    static DescriptorProtos.FileDescriptorProto withCommentsOnly(DescriptorProtos.FileDescriptorProto fileDescriptor) {
+        if (!fileDescriptor.hasSourceCodeInfo()) {
+            return fileDescriptor;
+        }
+        var sourceCodeInfo = DescriptorProtos.SourceCodeInfo.newBuilder();
+        for (DescriptorProtos.SourceCodeInfo.Location location : fileDescriptor.getSourceCodeInfo().getLocationList()) {
+            if (location.hasLeadingComments() || location.hasTrailingComments()
+                    || location.getLeadingDetachedCommentsCount() > 0) {
+                sourceCodeInfo.addLocation(location);
+            }
+        }
+        return fileDescriptor.toBuilder().setSourceCodeInfo(sourceCodeInfo).build();
+    }
+
     public static void copyDirectory(final Path source, final Path target) throws IOException {
+        copyDirectory(source, target, null);
+    }
+
+    private static void copyDirectory(final Path source, final Path target, GrpcZeroEvents.PhaseEvent event)
+            throws IOException {
         java.nio.file.Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
             public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
                 if (java.nio.file.Files.isSymbolicLink(dir)) {
@@ -349,6 +1132,10 @@ public class GrpcZeroCodeGen implements CodeGenProvider {
                 String relative = source.relativize(file).toString().replace("\\", "/");
                 Path path = target.resolve(relative);
                 java.nio.file.Files.copy(file, path, StandardCopyOption.COPY_ATTRIBUTES, StandardCopyOption.REPLACE_EXISTING);
+                if (event != null) {
+                    event.fileCount++;
+                    event.bytesIn += attrs.size();
+                }
                 return FileVisitResult.CONTINUE;
             }
         });
@@ -383,24 +1170,40 @@ public class GrpcZeroCodeGen implements CodeGenProvider {
         }
     }
 
-    private void postprocessing(CodeGenContext context, Path outDir) {
+    /**
+     * @param files the files to post-process, or {@code null} for all the files of {@code outDir}
+     */
+    private void postprocessing(CodeGenContext context, Path outDir, Collection<Path> files) {
         if (TRUE.toString().equalsIgnoreCase(System.getProperties().getProperty(POST_PROCESS_SKIP, "false"))
                 || context.config().getOptionalValue(POST_PROCESS_SKIP, Boolean.class).orElse(false)) {
             log.info("Skipping gRPC Post-Processing on user's request");
             return;
         }
 
-        new GrpcZeroPostProcessing(context, outDir).postprocess();
-
+        var event = new GrpcZeroEvents.PostProcessing();
+        event.begin();
+        var postProcessing = new GrpcZeroPostProcessing(context, outDir);
+        event.fileCount = files == null ? postProcessing.postprocess() : postProcessing.postprocess(files);
+        event.commit();
     }
 
-    private static DescriptorProtos.FileDescriptorSet getDescriptor(Path workdir, String fileName)
+    static DescriptorProtos.FileDescriptorSet getDescriptor(Path workdir, String fileName, GrpcZeroReport report)
             throws CodeGenException {
-        return getDescriptor(workdir, List.of(fileName));
+        return getDescriptor(workdir, List.of(fileName), report);
     }
 
-    private static DescriptorProtos.FileDescriptorSet getDescriptor(Path workdir, List<String> fileNames)
-            throws CodeGenException {
+    static DescriptorProtos.FileDescriptorSet getDescriptor(Path workdir, List<String> fileNames,
+            GrpcZeroReport report) throws CodeGenException {
+        return getDescriptor(workdir, fileNames, false, report);
+    }
+
+    /**
+     * @param includeSourceInfo whether the descriptors carry their source info, which holds the comments
+     */
+    static DescriptorProtos.FileDescriptorSet getDescriptor(Path workdir, List<String> fileNames,
+            boolean includeSourceInfo, GrpcZeroReport report) throws CodeGenException {
+        var event = new GrpcZeroEvents.Descriptors();
+        event.begin();
         try (ByteArrayOutputStream stdout = new ByteArrayOutputStream();
                 ByteArrayOutputStream stderr = new ByteArrayOutputStream()) {
             var wasiOptsBuilder = WasiOptions.builder()
@@ -410,6 +1213,13 @@ public class GrpcZeroCodeGen implements CodeGenProvider {
             List<String> command = new ArrayList<>();
             command.add("protoc-wrapper");
             command.add("descriptors");
+            String descriptorSetIn = descriptorSetIn(workdir);
+            if (descriptorSetIn != null) {
+                command.add("--descriptor_set_in=" + descriptorSetIn);
+            }
+            if (includeSourceInfo) {
+                command.add("--include_source_info");
+            }
 
             command.addAll(fileNames);
 
@@ -417,22 +1227,14 @@ public class GrpcZeroCodeGen implements CodeGenProvider {
                     .withArguments(command)
                     .withDirectory(workdir.toString(), workdir)
                     .build();
-            try (var wasi = WasiPreview1.builder().withOptions(wasiOpts).build()) {
-                var imports = ImportValues.builder()
-                        .addFunction(wasi.toHostFunctions())
-                        .addMemory(getDefaultMemory())
-                        .build();
-
+            try {
                 log.debug("protoc command: " + command.stream().collect(Collectors.joining(" ")));
-                Instance
-                        .builder(PROTOC_WRAPPER)
-                        .withImportValues(imports)
-                        .withMachineFactory(ProtocWrapper::create)
-                        .build();
+                CodegenEngine.get().run(wasiOpts, "descriptors", 0, stdout::size, report);
             } catch (TrapException trap) {
                 System.out.println(stdout);
                 System.err.println(stderr);
-                throw new CodeGenException("Error running protoc-wrapper, trapped");
+                throw new CodeGenException("Error running protoc-wrapper, trapped. If it ran out of memory, raise "
+                        + CodegenEngine.INSTANCE_MEMORY);
             } catch (WasiExitException exit) {
                 System.out.println(stdout);
                 System.err.println(stderr);
@@ -440,7 +1242,15 @@ public class GrpcZeroCodeGen implements CodeGenProvider {
                     throw new CodeGenException("Error running protoc-wrapper: " + exit.exitCode());
                 }
             }
-            return DescriptorProtos.FileDescriptorSet.parseFrom(stdout.toByteArray());
+            var descriptorSet = DescriptorProtos.FileDescriptorSet.parseFrom(stdout.toByteArray());
+            event.end();
+            if (event.shouldCommit()) {
+                event.protoFiles = String.join(",", fileNames);
+                event.fileCount = descriptorSet.getFileCount();
+                event.bytesOut = stdout.size();
+                event.commit();
+            }
+            return descriptorSet;
         } catch (IOException e) {
             throw new CodeGenException(
                     "Failed to generate java files from proto files " + fileNames.stream().collect(Collectors.joining(", ")),
@@ -448,45 +1258,101 @@ public class GrpcZeroCodeGen implements CodeGenProvider {
         }
     }
 
-    private static PluginProtos.CodeGeneratorResponse runNativePlugin(String pluginName,
-            PluginProtos.CodeGeneratorRequest codeGeneratorRequest, Path workdir) throws CodeGenException {
-        try (ByteArrayOutputStream stdout = new ByteArrayOutputStream();
-                ByteArrayOutputStream stderr = new ByteArrayOutputStream()) {
+    /**
+     * Parses proto files of a workdir into descriptors.
+     */
+    @FunctionalInterface
+    interface DescriptorLoader {
+        DescriptorProtos.FileDescriptorSet load(List<String> fileNames, boolean includeSourceInfo,
+                GrpcZeroReport report) throws CodeGenException;
+    }
 
-            var wasiOptsBuilder = WasiOptions.builder()
-                    .withStdout(stdout)
-                    .withStderr(stderr);
+    /**
+     * A fresh protoc-wrapper run for every load.
+     */
+    static DescriptorLoader oneShot(Path workdir) {
+        return (fileNames, includeSourceInfo, report) -> getDescriptor(workdir, fileNames, includeSourceInfo, report);
+    }
 
-            var wasiOpts = wasiOptsBuilder
-                    .withStdin(new ByteArrayInputStream(codeGeneratorRequest.toByteArray()))
+    /**
+     * @return the prebuilt descriptor sets copied into {@code workdir}, in the colon separated form expected by
+     *         {@code --descriptor_set_in}, or {@code null} when there are none
+     */
+    static String descriptorSetIn(Path workdir) throws IOException {
+        Path descriptorSetInDir = workdir.resolve(DESCRIPTOR_SET_IN_DIR);
+        if (!Files.isDirectory(descriptorSetInDir)) {
+            return null;
+        }
+        try (Stream<Path> descriptorSets = Files.list(descriptorSetInDir)) {
+            String descriptorSetIn = descriptorSets
+                    .map(path -> DESCRIPTOR_SET_IN_DIR + "/" + path.getFileName())
+                    .sorted()
+                    .collect(Collectors.joining(":"));
+            return descriptorSetIn.isEmpty() ? null : descriptorSetIn;
+        }
+    }
+
+    static PluginProtos.CodeGeneratorResponse runNativePlugin(String pluginName,
+            PluginProtos.CodeGeneratorRequest codeGeneratorRequest, Path workdir, GrpcZeroReport report)
+            throws CodeGenException {
+        try (ByteArrayOutputStream stdout = new ByteArrayOutputStream()) {
+            byte[] request = codeGeneratorRequest.toByteArray();
+            runNativePlugin(pluginName, new ByteArrayInputStream(request), request.length, stdout, stdout::size, workdir,
+                    report);
+            return PluginProtos.CodeGeneratorResponse.parseFrom(stdout.toByteArray());
+        } catch (IOException e) {
+            throw new CodeGenException("Failed to run native protoc plugin " + pluginName, e);
+        }
+    }
+
+    /**
+     * Runs a plugin with the request read from {@code requestFile} and the response written to {@code responseFile}.
+     */
+    private static void runNativePlugin(String pluginName, Path requestFile, Path responseFile, Path workdir,
+            GrpcZeroReport report) throws CodeGenException {
+        try (InputStream stdin = Files.newInputStream(requestFile);
+                OutputStream stdout = Files.newOutputStream(responseFile)) {
+            runNativePlugin(pluginName, stdin, Files.size(requestFile), stdout, () -> sizeOf(responseFile), workdir,
+                    report);
+        } catch (IOException e) {
+            throw new CodeGenException("Failed to run native protoc plugin " + pluginName, e);
+        }
+    }
+
+    private static void runNativePlugin(String pluginName, InputStream stdin, long stdinSize, OutputStream stdout,
+            LongSupplier stdoutSize, Path workdir, GrpcZeroReport report) throws CodeGenException, IOException {
+        try (ByteArrayOutputStream stderr = new ByteArrayOutputStream()) {
+            var wasiOpts = WasiOptions.builder()
+                    .withStdout(stdout)
+                    .withStderr(stderr)
+                    .withStdin(stdin)
                     .withArguments(List.of("protoc-wrapper", pluginName))
                     .withDirectory(workdir.toString(), workdir)
                     .build();
-            try (var wasi = WasiPreview1.builder().withOptions(wasiOpts).build()) {
-                var imports = ImportValues.builder()
-                        .addFunction(wasi.toHostFunctions())
-                        .addMemory(getDefaultMemory())
-                        .build();
-
-                Instance.builder(PROTOC_WRAPPER)
-                        .withImportValues(imports)
-                        .withMachineFactory(ProtocWrapper::create)
-                        .build();
+            try {
+                CodegenEngine.get().run(wasiOpts, pluginName, stdinSize, stdoutSize, report);
             } catch (Exception e) {
                 log.error("Error running protoc native plugin ", e);
-                System.out.println(stdout);
                 System.err.println(stderr);
                 throw new CodeGenException("Error running protoc native plugin.", e);
             }
+        }
+    }
 
-            return PluginProtos.CodeGeneratorResponse.parseFrom(stdout.toByteArray());
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
         } catch (IOException e) {
-            throw new CodeGenException("Failed to run native protoc plugin " + pluginName, e);
+            return -1;
         }
     }
 
+    /**
+     * @param protoArtifacts filled with the artifact of every proto, by absolute path
+     */
     private Collection<Path> gatherProtosFromDependencies(Path workDir, Set<String> protoDirectories,
-            CodeGenContext context) throws CodeGenException {
+            Map<String, ResolvedDependency> protoArtifacts, CodeGenContext context, ArtifactIndex index,
+            GrpcZeroReport report) throws CodeGenException {
         if (context.test()) {
             return Collections.emptyList();
         }
@@ -502,26 +1368,50 @@ public class GrpcZeroCodeGen implements CodeGenProvider {
         List<String> dependenciesToScan = Arrays.stream(scanDependencies.split(",")).map(String::trim)
                 .collect(Collectors.toList());
 
+        var event = new GrpcZeroEvents.DependencyScan();
+        event.begin();
         ApplicationModel appModel = context.applicationModel();
-        List<Path> protoFilesFromDependencies = new ArrayList<>();
+        List<ResolvedDependency> artifacts = new ArrayList<>();
         for (ResolvedDependency artifact : appModel.getRuntimeDependencies()) {
-            String packageId = String.format("%s:%s", artifact.getGroupId(), artifact.getArtifactId());
-            Collection<String> includes = properties
-                    .getOptionalValue(String.format(SCAN_DEPENDENCIES_FOR_PROTO_INCLUDE_PATTERN, packageId), String.class)
-                    .map(s -> Arrays.stream(s.split(",")).map(String::trim).collect(Collectors.toList()))
-                    .orElse(List.of());
-
-            Collection<String> excludes = properties
-                    .getOptionalValue(String.format(SCAN_DEPENDENCIES_FOR_PROTO_EXCLUDE_PATTERN, packageId), String.class)
-                    .map(s -> Arrays.stream(s.split(",")).map(String::trim).collect(Collectors.toList()))
-                    .orElse(List.of());
-
             if (scanAll
-                    || dependenciesToScan.contains(packageId)) {
-                extractProtosFromArtifact(workDir, protoFilesFromDependencies, protoDirectories, artifact, includes, excludes,
-                        true);
+                    || dependenciesToScan.contains(String.format("%s:%s", artifact.getGroupId(), artifact.getArtifactId()))) {
+                artifacts.add(artifact);
             }
         }
+        List<ExtractedProtos> extracted = scanArtifacts(artifacts, artifact -> {
+            ExtractedProtos protos = new ExtractedProtos();
+            if (mayContain(index, artifact, List.of(PROTO), report)) {
+                String packageId = String.format("%s:%s", artifact.getGroupId(), artifact.getArtifactId());
+                Collection<String> includes = properties
+                        .getOptionalValue(String.format(SCAN_DEPENDENCIES_FOR_PROTO_INCLUDE_PATTERN, packageId),
+                                String.class)
+                        .map(s -> Arrays.stream(s.split(",")).map(String::trim).collect(Collectors.toList()))
+                        .orElse(List.of());
+
+                Collection<String> excludes = properties
+                        .getOptionalValue(String.format(SCAN_DEPENDENCIES_FOR_PROTO_EXCLUDE_PATTERN, packageId),
+                                String.class)
+                        .map(s -> Arrays.stream(s.split(",")).map(String::trim).collect(Collectors.toList()))
+                        .orElse(List.of());
+
+                extractProtosFromArtifact(workDir, protos.files, protos.directories, artifact, includes, excludes, true);
+                protos.walked = true;
+            }
+            return protos;
+        });
+        List<Path> protoFilesFromDependencies = ExtractedProtos.merge(extracted, protoDirectories);
+        for (int i = 0; i < artifacts.size(); i++) {
+            ExtractedProtos protos = extracted.get(i);
+            for (Path file : protos.files) {
+                protoArtifacts.putIfAbsent(file.normalize().toAbsolutePath().toString(), artifacts.get(i));
+            }
+            if (protos.walked) {
+                event.artifactCount++;
+            }
+        }
+        event.purpose = SCAN_DEPENDENCIES_FOR_PROTO;
+        event.fileCount = protoFilesFromDependencies.size();
+        event.commit();
         return protoFilesFromDependencies;
     }
 
@@ -560,7 +1450,103 @@ public class GrpcZeroCodeGen implements CodeGenProvider {
         return dscOutputDir.resolve(dscFilename).normalize();
     }
 
-    private Collection<String> gatherDirectoriesWithImports(Path workDir, CodeGenContext context) throws CodeGenException {
+    /**
+     * The descriptor set is written to the directory the application classes are built to, the first directory of the
+     * application artifact, e.g. {@code target/classes} with Maven or {@code build/classes/java/main} with Gradle.
+     */
+    private Path getPublishedDescriptorSetFile(CodeGenContext context) throws CodeGenException {
+        ResolvedDependency app = context.applicationModel().getAppArtifact();
+        if (app != null && app.getResolvedPaths() != null) {
+            for (Path path : app.getResolvedPaths()) {
+                // the classes directory may not have been created yet, but it's never an archive
+                if (!Files.isRegularFile(path) && !path.getFileName().toString().endsWith(".jar")) {
+                    Path bundleFile = path.resolve(PUBLISHED_DESCRIPTOR_SET);
+                    log.info("Grpc Zero: publishing descriptor set to " + bundleFile);
+                    return bundleFile;
+                }
+            }
+        }
+        throw new CodeGenException("Cannot publish the descriptor set, the application has no classes directory in "
+                + (app == null ? "its model" : app.getResolvedPaths()) + ". Disable " + PUBLISH_DESCRIPTOR_SET
+                + " and package the file generated with " + GENERATE_DESCRIPTOR_SET + " instead");
+    }
+
+    /**
+     * The generation is incremental in dev mode unless disabled, and never when the run produces files describing all
+     * the protos, which are rebuilt from scratch.
+     */
+    private boolean isIncremental(CodeGenContext context) {
+        Config config = context.config();
+        return config.getOptionalValue(INCREMENTAL, Boolean.class).orElseGet(() -> isDevMode(config))
+                && !isLowMemory(config)
+                && !shouldGenerateDescriptorSet(config)
+                && !shouldPublishDescriptorSet(context);
+    }
+
+    /**
+     * A resident protoc-wrapper holds an engine lease for as long as its incremental state lives, it only pays off when
+     * the generation runs again and again.
+     */
+    private static boolean isResidentServer(Config config) {
+        return config.getOptionalValue(RESIDENT_SERVER, Boolean.class).orElseGet(() -> isDevMode(config));
+    }
+
+    /**
+     * Dev mode is the only build triggering the code generation again in the same JVM, it runs with the dev profile.
+     */
+    private static boolean isDevMode(Config config) {
+        return config instanceof SmallRyeConfig smallRyeConfig
+                && smallRyeConfig.getProfiles().contains(LaunchMode.DEVELOPMENT.getDefaultProfile());
+    }
+
+    /**
+     * @return the comma separated values of the property, none when it is not set
+     */
+    static List<String> listProperty(Config config, String property) {
+        return config.getOptionalValue(property, String.class)
+                .map(value -> Arrays.stream(value.split(",")).map(String::trim).filter(v -> !v.isEmpty())
+                        .collect(Collectors.toList()))
+                .orElse(List.of());
+    }
+
+    private boolean isLite(Config config) {
+        return config.getOptionalValue(LITE, Boolean.class).orElse(FALSE);
+    }
+
+    private boolean isPruning(Config config) {
+        return config.getOptionalValue(PRUNE, Boolean.class).orElse(FALSE);
+    }
+
+    private boolean isLazyImports(Config config) {
+        return config.getOptionalValue(LAZY_IMPORTS, Boolean.class).orElse(FALSE);
+    }
+
+    private boolean isLowMemory(Config config) {
+        return config.getOptionalValue(LOW_MEMORY, Boolean.class).orElse(FALSE);
+    }
+
+    private int getLowMemoryChunkSize(Config config) {
+        return Math.max(1, config.getOptionalValue(LOW_MEMORY_CHUNK_SIZE, Integer.class).orElse(25));
+    }
+
+    private boolean shouldPublishDescriptorSet(CodeGenContext context) {
+        return !context.test()
+                && context.config().getOptionalValue(PUBLISH_DESCRIPTOR_SET, Boolean.class).orElse(FALSE);
+    }
+
+    private boolean shouldGenerateReport(Config config) {
+        return config.getOptionalValue(GENERATE_REPORT, Boolean.class).orElse(FALSE);
+    }
+
+    private Path getReportOutputFile(CodeGenContext context) {
+        return context.config().getOptionalValue(REPORT_FILENAME, String.class)
+                .map(context.workDir()::resolve)
+                .orElseGet(() -> context.workDir().resolve("grpc-zero-report.json"))
+                .normalize();
+    }
+
+    private Collection<String> gatherDirectoriesWithImports(Path workDir, CodeGenContext context, ArtifactIndex index,
+            GrpcZeroReport report) throws CodeGenException {
         Config properties = context.config();
 
         String scanForImports = properties.getOptionalValue(SCAN_FOR_IMPORTS, String.class)
@@ -574,23 +1560,236 @@ public class GrpcZeroCodeGen implements CodeGenProvider {
         List<String> dependenciesToScan = Arrays.stream(scanForImports.split(",")).map(String::trim)
                 .collect(Collectors.toList());
 
-        Set<String> importDirectories = new HashSet<>();
+        var event = new GrpcZeroEvents.DependencyScan();
+        event.begin();
         ApplicationModel appModel = context.applicationModel();
+        List<ResolvedDependency> artifacts = new ArrayList<>();
         for (ResolvedDependency artifact : appModel.getRuntimeDependencies()) {
             if (scanAll
                     || dependenciesToScan.contains(
                             String.format("%s:%s", artifact.getGroupId(), artifact.getArtifactId()))) {
-                extractProtosFromArtifact(workDir, new ArrayList<>(), importDirectories, artifact, List.of(),
+                artifacts.add(artifact);
+            }
+        }
+        List<ExtractedProtos> extracted = scanArtifacts(artifacts, artifact -> {
+            ExtractedProtos protos = new ExtractedProtos();
+            if (mayContain(index, artifact, List.of(PROTO), report)) {
+                extractProtosFromArtifact(workDir, protos.files, protos.directories, artifact, List.of(),
                         List.of(), false);
+                protos.walked = true;
+            }
+            return protos;
+        });
+        Set<String> importDirectories = new LinkedHashSet<>();
+        event.fileCount = ExtractedProtos.merge(extracted, importDirectories).size();
+        for (ExtractedProtos protos : extracted) {
+            if (protos.walked) {
+                event.artifactCount++;
             }
         }
+        event.purpose = SCAN_FOR_IMPORTS;
+        event.commit();
         return importDirectories;
     }
 
+    /**
+     * Lists the protos of the dependencies scanned for imports without extracting them, see {@link ImportIndex}.
+     */
+    private ImportIndex gatherImportIndex(Path workDir, CodeGenContext context, ArtifactIndex index,
+            GrpcZeroReport report) throws CodeGenException {
+        String scanForImports = context.config().getOptionalValue(SCAN_FOR_IMPORTS, String.class)
+                .orElse("com.google.protobuf:protobuf-java");
+
+        ImportIndex importIndex = new ImportIndex(workDir);
+        if ("none".equals(scanForImports.toLowerCase(Locale.getDefault()))) {
+            return importIndex;
+        }
+
+        boolean scanAll = "all".equals(scanForImports.toLowerCase(Locale.getDefault()));
+        List<String> dependenciesToScan = Arrays.stream(scanForImports.split(",")).map(String::trim)
+                .collect(Collectors.toList());
+
+        var event = new GrpcZeroEvents.DependencyScan();
+        event.begin();
+        List<ResolvedDependency> artifacts = new ArrayList<>();
+        for (ResolvedDependency artifact : context.applicationModel().getRuntimeDependencies()) {
+            if (scanAll
+                    || dependenciesToScan.contains(
+                            String.format("%s:%s", artifact.getGroupId(), artifact.getArtifactId()))) {
+                artifacts.add(artifact);
+            }
+        }
+        List<List<String>> entries = scanArtifacts(artifacts, artifact -> {
+            List<String> files = null;
+            try {
+                files = index.files(artifact, report);
+            } catch (IOException e) {
+                log.debugf(e, "Failed to index %s, walking it", artifact.toCompactCoords());
+            }
+            if (files == null) {
+                List<String> walked = new ArrayList<>();
+                artifact.getContentTree().walk(pathVisit -> {
+                    Path path = pathVisit.getPath();
+                    if (Files.isRegularFile(path) && path.getFileName().toString().endsWith(PROTO)) {
+                        walked.add(pathVisit.getRoot().relativize(path).toString().replace("\\", "/"));
+                    }
+                });
+                walked.sort(null);
+                files = walked;
+            }
+            return files.stream().filter(file -> file.endsWith(PROTO)).collect(Collectors.toList());
+        });
+        for (int i = 0; i < artifacts.size(); i++) {
+            for (String entry : entries.get(i)) {
+                importIndex.add(artifacts.get(i), entry);
+            }
+        }
+        event.purpose = LAZY_IMPORTS;
+        event.artifactCount = artifacts.size();
+        event.fileCount = importIndex.size();
+        event.commit();
+        return importIndex;
+    }
+
+    /**
+     * Extracts the prebuilt {@code FileDescriptorSet}s ({@code .desc} or {@code .binpb} files) of the configured
+     * dependencies, which let protoc-wrapper resolve imports without parsing the proto sources.
+     */
+    private List<Path> gatherDescriptorSetsFromDependencies(Path workDir, CodeGenContext context, ArtifactIndex index,
+            GrpcZeroReport report) throws CodeGenException {
+        String scanForDescriptorSets = context.config().getOptionalValue(SCAN_FOR_DESCRIPTOR_SETS, String.class)
+                .orElse("none");
+
+        if ("none".equals(scanForDescriptorSets.toLowerCase(Locale.getDefault()))) {
+            return Collections.emptyList();
+        }
+
+        boolean scanAll = "all".equals(scanForDescriptorSets.toLowerCase(Locale.getDefault()));
+        List<String> dependenciesToScan = Arrays.stream(scanForDescriptorSets.split(",")).map(String::trim)
+                .collect(Collectors.toList());
+
+        var event = new GrpcZeroEvents.DependencyScan();
+        event.begin();
+        List<ResolvedDependency> artifacts = new ArrayList<>();
+        for (ResolvedDependency artifact : context.applicationModel().getRuntimeDependencies()) {
+            if (scanAll
+                    || dependenciesToScan.contains(
+                            String.format("%s:%s", artifact.getGroupId(), artifact.getArtifactId()))) {
+                artifacts.add(artifact);
+            }
+        }
+        List<List<Path>> extracted = scanArtifacts(artifacts, artifact -> {
+            if (!mayContain(index, artifact, DESCRIPTOR_SET_EXTENSIONS, report)) {
+                return null;
+            }
+            List<Path> artifactDescriptorSets = new ArrayList<>();
+            Path artifactDir = workDir.resolve(HashUtil.sha1(artifact.toCompactCoords())).normalize()
+                    .toAbsolutePath();
+            try {
+                artifact.getContentTree().walk(pathVisit -> {
+                    Path path = pathVisit.getPath();
+                    String fileName = path.getFileName() == null ? "" : path.getFileName().toString();
+                    if (Files.isRegularFile(path) && DESCRIPTOR_SET_EXTENSIONS.stream().anyMatch(fileName::endsWith)) {
+                        Path outPath = artifactDir;
+                        for (Path part : pathVisit.getRoot().relativize(path)) {
+                            outPath = outPath.resolve(part.toString());
+                        }
+                        try {
+                            Files.createDirectories(outPath.getParent());
+                            copy(path, outPath, StandardCopyOption.REPLACE_EXISTING);
+                            artifactDescriptorSets.add(outPath);
+                        } catch (IOException e) {
+                            throw new GrpcCodeGenException("Failed to extract descriptor set " + path + " to target: "
+                                    + outPath, e);
+                        }
+                    }
+                });
+            } catch (GrpcCodeGenException e) {
+                throw new CodeGenException(e.getMessage(), e);
+            }
+            artifactDescriptorSets.sort(null);
+            return artifactDescriptorSets;
+        });
+        List<Path> descriptorSets = new ArrayList<>();
+        for (List<Path> artifactDescriptorSets : extracted) {
+            if (artifactDescriptorSets != null) {
+                descriptorSets.addAll(artifactDescriptorSets);
+                event.bytesOut += artifactDescriptorSets.stream().mapToLong(GrpcZeroCodeGen::sizeOf).sum();
+                event.artifactCount++;
+            }
+        }
+        event.purpose = SCAN_FOR_DESCRIPTOR_SETS;
+        event.fileCount = descriptorSets.size();
+        event.commit();
+        return descriptorSets;
+    }
+
+    /**
+     * @return whether the artifact may contain files with one of the extensions, {@code false} when the artifact
+     *         index knows it doesn't
+     */
+    private static boolean mayContain(ArtifactIndex index, ResolvedDependency artifact, List<String> extensions,
+            GrpcZeroReport report) {
+        List<String> files;
+        try {
+            files = index.files(artifact, report);
+        } catch (IOException e) {
+            log.debugf(e, "Failed to index %s, walking it", artifact.toCompactCoords());
+            return true;
+        }
+        return files == null || files.stream().anyMatch(file -> extensions.stream().anyMatch(file::endsWith));
+    }
+
+    /**
+     * Runs {@code scan} on every artifact in parallel, most of the time goes into opening jars. The results come back
+     * in the order of the artifacts, so that the first dependency providing a file still wins.
+     */
+    private static <T> List<T> scanArtifacts(List<ResolvedDependency> artifacts, ArtifactScan<T> scan)
+            throws CodeGenException {
+        int threads = Math.min(artifacts.size(), Runtime.getRuntime().availableProcessors());
+        if (threads <= 1) {
+            List<T> results = new ArrayList<>();
+            for (ResolvedDependency artifact : artifacts) {
+                results.add(scan.scan(artifact));
+            }
+            return results;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "grpc-zero-dependency-scan-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (ResolvedDependency artifact : artifacts) {
+                futures.add(executor.submit(() -> scan.scan(artifact)));
+            }
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CodeGenException("Interrupted while scanning dependencies", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CodeGenException codeGenException) {
+                throw codeGenException;
+            }
+            throw new CodeGenException("Failed to scan dependencies", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     private void extractProtosFromArtifact(Path workDir, Collection<Path> protoFiles,
             Set<String> protoDirectories, ResolvedDependency artifact, Collection<String> filesToInclude,
             Collection<String> filesToExclude, boolean isDependency) throws CodeGenException {
 
+        var event = new GrpcZeroEvents.Extraction();
+        event.begin();
+        int protoFilesBefore = protoFiles.size();
         try {
             artifact.getContentTree(new PathFilter(filesToInclude, filesToExclude)).walk(
                     pathVisit -> {
@@ -630,6 +1829,7 @@ public class GrpcZeroCodeGen implements CodeGenProvider {
                                         copy(path, outPath, StandardCopyOption.REPLACE_EXISTING);
                                     }
                                     protoFiles.add(outPath);
+                                    event.bytesOut += Files.size(outPath);
                                 } catch (IOException e) {
                                     throw new GrpcCodeGenException("Failed to extract proto file" + path + " to target: "
                                             + outPath, e);
@@ -640,6 +1840,12 @@ public class GrpcZeroCodeGen implements CodeGenProvider {
         } catch (GrpcCodeGenException e) {
             throw new CodeGenException(e.getMessage(), e);
         }
+        event.end();
+        if (event.shouldCommit()) {
+            event.artifact = artifact.toCompactCoords();
+            event.fileCount = protoFiles.size() - protoFilesBefore;
+            event.commit();
+        }
     }
 
     private String escapeWhitespace(String path) {
@@ -660,6 +1866,109 @@ public class GrpcZeroCodeGen implements CodeGenProvider {
         });
     }
 
+    /**
+     * Writes a FileDescriptorSet one file at a time, without source info and skipping files already written. A
+     * serialized FileDescriptorSet is nothing but its repeated {@code file} field, so no set is built in memory.
+     */
+    private static final class DescriptorSetWriter implements Closeable {
+        private final OutputStream out;
+        private final CodedOutputStream coded;
+        private final Set<String> written = new HashSet<>();
+
+        private DescriptorSetWriter(Path file) throws IOException {
+            Files.createDirectories(file.getParent());
+            this.out = Files.newOutputStream(file);
+            this.coded = CodedOutputStream.newInstance(out);
+        }
+
+        void addAll(List<DescriptorProtos.FileDescriptorProto> files) throws IOException {
+            for (DescriptorProtos.FileDescriptorProto file : files) {
+                if (written.add(file.getName())) {
+                    coded.writeMessage(DescriptorProtos.FileDescriptorSet.FILE_FIELD_NUMBER,
+                            file.hasSourceCodeInfo() ? file.toBuilder().clearSourceCodeInfo().build() : file);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                coded.flush();
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * What the dependencies contribute to the generation.
+     */
+    static final class DependencyScan {
+        // protos to generate
+        final Collection<Path> protoFiles;
+        // directories of the protos to generate
+        final Set<String> protoDirs;
+        // artifacts of the protos to generate, by absolute path
+        final Map<String, ResolvedDependency> protoArtifacts;
+        // directories of the protos to import
+        final Collection<String> importDirs;
+        // protos to import resolved on demand instead, null unless lazy imports are enabled
+        final ImportIndex importIndex;
+        final List<Path> descriptorSets;
+
+        private DependencyScan(Collection<Path> protoFiles, Set<String> protoDirs,
+                Map<String, ResolvedDependency> protoArtifacts, Collection<String> importDirs, ImportIndex importIndex,
+                List<Path> descriptorSets) {
+            this.protoFiles = protoFiles;
+            this.protoDirs = protoDirs;
+            this.protoArtifacts = protoArtifacts;
+            this.importDirs = importDirs;
+            this.importIndex = importIndex;
+            this.descriptorSets = descriptorSets;
+        }
+
+        /**
+         * Whether the files extracted by the scan are still there, a clean build removes them.
+         */
+        boolean isPresent() {
+            return protoFiles.stream().allMatch(Files::isRegularFile)
+                    && descriptorSets.stream().allMatch(Files::isRegularFile)
+                    && importDirs.stream().map(Path::of).allMatch(Files::isDirectory);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ArtifactScan<T> {
+        T scan(ResolvedDependency artifact) throws CodeGenException;
+    }
+
+    /**
+     * Protos extracted from a single artifact, in the order of the walk.
+     */
+    static final class ExtractedProtos {
+        final List<Path> files = new ArrayList<>();
+        final Set<String> directories = new TreeSet<>();
+        boolean walked;
+
+        /**
+         * Merges the protos of the artifacts in the order of the artifacts, which is the order of the application
+         * model, and sorted within an artifact rather than in the order of the walk.
+         *
+         * @param directories completed with the directories of the artifacts
+         * @return the proto files of the artifacts
+         */
+        static List<Path> merge(List<ExtractedProtos> extracted, Set<String> directories) {
+            List<Path> files = new ArrayList<>();
+            for (ExtractedProtos protos : extracted) {
+                List<Path> sorted = new ArrayList<>(protos.files);
+                sorted.sort(null);
+                files.addAll(sorted);
+                directories.addAll(protos.directories);
+            }
+            return files;
+        }
+    }
+
     private static class GrpcCodeGenException extends RuntimeException {
         private GrpcCodeGenException(String message, Exception cause) {
             super(message, cause);
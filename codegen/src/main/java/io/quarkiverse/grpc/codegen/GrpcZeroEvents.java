@@ -0,0 +1,108 @@
+package io.quarkiverse.grpc.codegen;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder events emitted by {@link GrpcZeroCodeGen}, one type per codegen phase.
+ * <p>
+ * They are only recorded when a recording is running, e.g. by starting Maven with
+ * {@code MAVEN_OPTS="-XX:StartFlightRecording=filename=codegen.jfr"}, and can be inspected with
+ * {@code jfr print --categories "gRPC Zero" codegen.jfr} or JDK Mission Control.
+ */
+final class GrpcZeroEvents {
+
+    private static final String PREFIX = "io.quarkiverse.grpc.zero.";
+    private static final String CATEGORY = "gRPC Zero";
+
+    private GrpcZeroEvents() {
+    }
+
+    @Category({ "Quarkus", CATEGORY })
+    @StackTrace(false)
+    abstract static class PhaseEvent extends Event {
+        @Label("File Count")
+        int fileCount;
+
+        @Label("Bytes In")
+        @DataAmount
+        long bytesIn;
+
+        @Label("Bytes Out")
+        @DataAmount
+        long bytesOut;
+    }
+
+    @Name(PREFIX + "DependencyScan")
+    @Label("Dependency Scan")
+    @Description("Scan of the application dependencies for proto files")
+    static final class DependencyScan extends PhaseEvent {
+        @Label("Purpose")
+        String purpose;
+
+        @Label("Artifact Count")
+        int artifactCount;
+    }
+
+    @Name(PREFIX + "Extraction")
+    @Label("Extraction")
+    @Description("Extraction of the proto files contained in a single artifact")
+    static final class Extraction extends PhaseEvent {
+        @Label("Artifact")
+        String artifact;
+    }
+
+    @Name(PREFIX + "ZeroFsPopulation")
+    @Label("ZeroFs Population")
+    @Description("Copy of the proto sources and imports into the in-memory file system")
+    static final class ZeroFsPopulation extends PhaseEvent {
+    }
+
+    @Name(PREFIX + "WasmInstantiation")
+    @Label("Wasm Instantiation")
+    @Description("Single run of the protoc-wrapper wasm module")
+    static final class WasmInstantiation extends PhaseEvent {
+        @Label("Command")
+        String command;
+
+        @Label("Peak Memory Pages")
+        @Description("Linear memory size in 64 KiB pages when the module exited")
+        int peakMemoryPages;
+
+        @Label("Exit Code")
+        int exitCode;
+    }
+
+    @Name(PREFIX + "Descriptors")
+    @Label("Descriptors")
+    @Description("Parsing of proto files into a FileDescriptorSet")
+    static final class Descriptors extends PhaseEvent {
+        @Label("Proto Files")
+        String protoFiles;
+    }
+
+    @Name(PREFIX + "PluginRun")
+    @Label("Plugin Run")
+    @Description("Single code generator run over the CodeGeneratorRequest")
+    static final class PluginRun extends PhaseEvent {
+        @Label("Plugin")
+        String plugin;
+    }
+
+    @Name(PREFIX + "DiskWrite")
+    @Label("Disk Write")
+    @Description("Write of the generated files to the output directory")
+    static final class DiskWrite extends PhaseEvent {
+    }
+
+    @Name(PREFIX + "PostProcessing")
+    @Label("Post-Processing")
+    @Description("JavaParser based post-processing of the generated sources")
+    static final class PostProcessing extends PhaseEvent {
+    }
+}
@@ -2,9 +2,12 @@ package io.quarkiverse.grpc.codegen;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jboss.logging.Logger;
 
+import com.github.javaparser.ParseResult;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Modifier;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
@@ -63,30 +66,23 @@ public class GrpcZeroPostProcessing {
         return Boolean.getBoolean(name) || context.config().getOptionalValue(name, Boolean.class).orElse(def);
     }
 
-    public void postprocess() {
+    /**
+     * Post-processes all the sources under the root.
+     *
+     * @return the number of files that have been rewritten
+     */
+    public int postprocess() {
         SourceRoot sr = new SourceRoot(root);
+        AtomicInteger processed = new AtomicInteger();
         try {
             sr.parse("", new SourceRoot.Callback() {
                 @Override
                 public com.github.javaparser.utils.SourceRoot.Callback.Result process(Path localPath, Path absolutePath,
-                        com.github.javaparser.ParseResult<CompilationUnit> result) {
-                    if (result.isSuccessful()) {
-                        CompilationUnit unit = result.getResult().orElseThrow(); // the parsing succeed, so we can retrieve the cu
-
-                        if (unit.getPrimaryType().isPresent()) {
-                            TypeDeclaration<?> type = unit.getPrimaryType().get();
-                            postprocess(unit, type);
-                            return Result.SAVE;
-                        }
-
-                    } else {
-                        // Compilation issue - report and skip
-                        log.errorf(
-                                "Unable to parse a class generated using protoc, skipping post-processing for this " +
-                                        "file. Reported problems are %s",
-                                result.toString());
+                        ParseResult<CompilationUnit> result) {
+                    if (postprocess(result)) {
+                        processed.incrementAndGet();
+                        return Result.SAVE;
                     }
-
                     return Result.DONT_SAVE;
                 }
             });
@@ -94,6 +90,57 @@ public class GrpcZeroPostProcessing {
             // read issue, report and exit
             log.error("Unable to parse the classes generated using protoc - skipping gRPC post processing", e);
         }
+        return processed.get();
+    }
+
+    /**
+     * Post-processes the given sources only, files other than java sources are ignored.
+     *
+     * @return the number of files that have been rewritten
+     */
+    public int postprocess(Collection<Path> files) {
+        SourceRoot sr = new SourceRoot(root);
+        int processed = 0;
+        for (Path file : files) {
+            if (!file.getFileName().toString().endsWith(".java")) {
+                continue;
+            }
+            try {
+                ParseResult<CompilationUnit> result = sr.tryToParse("", root.relativize(file).toString());
+                if (postprocess(result)) {
+                    result.getResult().orElseThrow().getStorage().orElseThrow().save();
+                    processed++;
+                }
+            } catch (Exception e) {
+                // read issue, report and go on with the other files
+                log.error("Unable to parse " + file + " - skipping gRPC post processing for this file", e);
+            }
+        }
+        return processed;
+    }
+
+    /**
+     * @return whether the unit has been post-processed and should be saved
+     */
+    private boolean postprocess(ParseResult<CompilationUnit> result) {
+        if (result.isSuccessful()) {
+            CompilationUnit unit = result.getResult().orElseThrow(); // the parsing succeed, so we can retrieve the cu
+
+            if (unit.getPrimaryType().isPresent()) {
+                TypeDeclaration<?> type = unit.getPrimaryType().get();
+                postprocess(unit, type);
+                return true;
+            }
+
+        } else {
+            // Compilation issue - report and skip
+            log.errorf(
+                    "Unable to parse a class generated using protoc, skipping post-processing for this " +
+                            "file. Reported problems are %s",
+                    result.toString());
+        }
+
+        return false;
     }
 
     private void postprocess(CompilationUnit unit, TypeDeclaration<?> primary) {
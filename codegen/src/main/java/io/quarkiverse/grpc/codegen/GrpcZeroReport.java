@@ -0,0 +1,251 @@
+package io.quarkiverse.grpc.codegen;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.google.protobuf.compiler.PluginProtos;
+
+/**
+ * Collects the cost of a single {@link GrpcZeroCodeGen#trigger} run and writes it as JSON, so that CI can track
+ * codegen cost across commits.
+ * <p>
+ * Collection is always on (it's a handful of counters), the file is only written when
+ * {@code quarkus.generate-code.grpc.report.generate} is enabled.
+ */
+final class GrpcZeroReport {
+
+    static final int VERSION = 1;
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final Map<String, Proto> protos = new LinkedHashMap<>();
+    private final Map<String, Generator> generators = new LinkedHashMap<>();
+    private final Map<String, long[]> caches = new LinkedHashMap<>();
+    private final List<Path> outputs = new ArrayList<>();
+    // size of every generated file, by path relative to the output directory
+    private final Map<String, Long> outputSizes = new HashMap<>();
+    private int wasmInstantiations;
+    private long wasmNanos;
+    private int peakMemoryPages;
+
+    private static final class Proto {
+        long descriptorNanos;
+        int descriptorFiles;
+        long descriptorBytes;
+    }
+
+    private static final class Generator {
+        long nanos;
+        int files;
+        long bytes;
+    }
+
+    /**
+     * Adds the time elapsed since {@code startNanos} to the given phase, phases running more than once are summed up.
+     */
+    synchronized void phase(String name, long startNanos) {
+        phases.merge(name, System.nanoTime() - startNanos, Long::sum);
+    }
+
+    synchronized void descriptor(String protoName, long startNanos, int files, long bytes) {
+        Proto proto = protos.computeIfAbsent(protoName, k -> new Proto());
+        proto.descriptorNanos += System.nanoTime() - startNanos;
+        proto.descriptorFiles += files;
+        proto.descriptorBytes += bytes;
+    }
+
+    synchronized void generator(String name, long startNanos, List<PluginProtos.CodeGeneratorResponse.File> files) {
+        long bytes = 0;
+        for (PluginProtos.CodeGeneratorResponse.File file : files) {
+            bytes += file.getContentBytes().size();
+        }
+        generator(name, startNanos, files.size(), bytes);
+    }
+
+    synchronized void generator(String name, long startNanos, int files, long bytes) {
+        Generator generator = generators.computeIfAbsent(name, k -> new Generator());
+        generator.nanos += System.nanoTime() - startNanos;
+        generator.files += files;
+        generator.bytes += bytes;
+    }
+
+    synchronized void wasmInstantiation(long startNanos, int memoryPages) {
+        wasmInstantiations++;
+        wasmNanos += System.nanoTime() - startNanos;
+        peakMemoryPages = Math.max(peakMemoryPages, memoryPages);
+    }
+
+    synchronized void cacheHit(String cache) {
+        caches.computeIfAbsent(cache, k -> new long[2])[0]++;
+    }
+
+    synchronized void cacheMiss(String cache) {
+        caches.computeIfAbsent(cache, k -> new long[2])[1]++;
+    }
+
+    /**
+     * Records a file written by the run. The path is used to post-process only what has been generated, the size is
+     * reported by name to find the files that are the slowest to compile.
+     *
+     * @param name the path of the file relative to the output directory
+     */
+    synchronized void output(Path file, String name, long bytes) {
+        outputs.add(file);
+        outputSizes.put(name, bytes);
+    }
+
+    /**
+     * @return the names of the generated files larger than {@code bytes}, largest first
+     */
+    synchronized List<String> outputsLargerThan(long bytes) {
+        return largestOutputs().stream()
+                .filter(output -> output.getValue() > bytes)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private List<Map.Entry<String, Long>> largestOutputs() {
+        List<Map.Entry<String, Long>> largest = new ArrayList<>(outputSizes.entrySet());
+        largest.sort(Map.Entry.<String, Long> comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+        return largest;
+    }
+
+    synchronized List<Path> outputs() {
+        return List.copyOf(outputs);
+    }
+
+    synchronized int wasmInstantiations() {
+        return wasmInstantiations;
+    }
+
+    synchronized int peakMemoryPages() {
+        return peakMemoryPages;
+    }
+
+    void write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.writeString(file, toJson());
+    }
+
+    synchronized String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"version\": ").append(VERSION).append(",\n");
+        json.append("  \"totalMillis\": ").append(millis(System.nanoTime() - startNanos)).append(",\n");
+
+        json.append("  \"phases\": {");
+        String sep = "\n";
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            json.append(sep).append("    ").append(quote(phase.getKey())).append(": ").append(millis(phase.getValue()));
+            sep = ",\n";
+        }
+        json.append(phases.isEmpty() ? "},\n" : "\n  },\n");
+
+        json.append("  \"protos\": [");
+        sep = "\n";
+        for (Map.Entry<String, Proto> entry : protos.entrySet()) {
+            Proto proto = entry.getValue();
+            json.append(sep).append("    { \"name\": ").append(quote(entry.getKey()))
+                    .append(", \"descriptorMillis\": ").append(millis(proto.descriptorNanos))
+                    .append(", \"descriptorFiles\": ").append(proto.descriptorFiles)
+                    .append(", \"descriptorBytes\": ").append(proto.descriptorBytes)
+                    .append(" }");
+            sep = ",\n";
+        }
+        json.append(protos.isEmpty() ? "],\n" : "\n  ],\n");
+
+        json.append("  \"generators\": [");
+        sep = "\n";
+        for (Map.Entry<String, Generator> entry : generators.entrySet()) {
+            Generator generator = entry.getValue();
+            json.append(sep).append("    { \"name\": ").append(quote(entry.getKey()))
+                    .append(", \"millis\": ").append(millis(generator.nanos))
+                    .append(", \"files\": ").append(generator.files)
+                    .append(", \"bytes\": ").append(generator.bytes)
+                    .append(" }");
+            sep = ",\n";
+        }
+        json.append(generators.isEmpty() ? "],\n" : "\n  ],\n");
+
+        json.append("  \"files\": [");
+        sep = "\n";
+        for (Map.Entry<String, Long> output : largestOutputs()) {
+            json.append(sep).append("    { \"name\": ").append(quote(output.getKey()))
+                    .append(", \"bytes\": ").append(output.getValue())
+                    .append(" }");
+            sep = ",\n";
+        }
+        json.append(outputSizes.isEmpty() ? "],\n" : "\n  ],\n");
+
+        json.append("  \"wasm\": { \"instantiations\": ").append(wasmInstantiations)
+                .append(", \"millis\": ").append(millis(wasmNanos))
+                .append(", \"peakMemoryPages\": ").append(peakMemoryPages)
+                .append(", \"peakMemoryBytes\": ").append(peakMemoryPages * 65536L)
+                .append(" },\n");
+
+        json.append("  \"caches\": {");
+        sep = "\n";
+        for (Map.Entry<String, long[]> entry : caches.entrySet()) {
+            long hits = entry.getValue()[0];
+            long misses = entry.getValue()[1];
+            double ratio = hits + misses == 0 ? 0.0 : (double) hits / (hits + misses);
+            json.append(sep).append("    ").append(quote(entry.getKey()))
+                    .append(": { \"hits\": ").append(hits)
+                    .append(", \"misses\": ").append(misses)
+                    .append(", \"hitRatio\": ").append(String.format(Locale.ROOT, "%.4f", ratio))
+                    .append(" }");
+            sep = ",\n";
+        }
+        json.append(caches.isEmpty() ? "}\n" : "\n  }\n");
+        json.append("}\n");
+        return json.toString();
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,216 @@
+package io.quarkiverse.grpc.codegen;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.logging.Logger;
+
+import com.dylibso.chicory.runtime.ExecutionListener;
+import com.dylibso.chicory.wasm.Parser;
+import com.dylibso.chicory.wasm.WasmModule;
+import com.dylibso.chicory.wasm.types.ExternalType;
+import com.dylibso.chicory.wasm.types.FunctionBody;
+import com.dylibso.chicory.wasm.types.Instruction;
+import com.dylibso.chicory.wasm.types.NameCustomSection;
+import com.dylibso.chicory.wasm.types.OpCode;
+
+/**
+ * Opt-in profiler of the C++ code running inside protoc-wrapper.
+ * <p>
+ * Enabled with {@code -Dgrpc.zero.codegen.profile=<output directory>}: protoc-wrapper then runs in the Chicory
+ * interpreter instead of the AOT compiled machine, and every executed instruction is attributed to the current guest
+ * call stack. Each run writes:
+ * <ul>
+ * <li>{@code <command>-<n>.folded}: executed instructions per call stack, in the folded format understood by
+ * {@code flamegraph.pl} and speedscope</li>
+ * <li>{@code <command>-<n>.calls}: number of calls per function</li>
+ * </ul>
+ * Functions are named after the wasm name section, which the release binary doesn't carry: point
+ * {@code -Dgrpc.zero.codegen.profile.wasm} to the profiling variant built by {@code make build-protoc-wrapper-profiling}
+ * to get C++ symbols instead of function indexes.
+ */
+final class GuestProfiler {
+    private static final Logger log = Logger.getLogger(GuestProfiler.class);
+
+    static final String PROFILE = "grpc.zero.codegen.profile";
+    static final String PROFILE_WASM = "grpc.zero.codegen.profile.wasm";
+
+    private static final AtomicInteger RUNS = new AtomicInteger();
+    private static volatile Symbols symbols;
+
+    private final Path outputDir;
+    private final Symbols functions;
+    private final Frame root = new Frame(null, -1);
+    private final long[] calls;
+    private Frame current = root;
+    private boolean pendingCall;
+
+    private GuestProfiler(Path outputDir, Symbols functions) {
+        this.outputDir = outputDir;
+        this.functions = functions;
+        this.calls = new long[functions.importedFunctions + functions.starts.length];
+    }
+
+    static boolean isEnabled() {
+        return System.getProperty(PROFILE) != null;
+    }
+
+    /**
+     * @param releaseModule the module to profile when no profiling variant has been configured
+     */
+    static GuestProfiler create(WasmModule releaseModule) {
+        Symbols loaded = symbols;
+        if (loaded == null) {
+            synchronized (GuestProfiler.class) {
+                loaded = symbols;
+                if (loaded == null) {
+                    String wasm = System.getProperty(PROFILE_WASM);
+                    WasmModule module = wasm == null ? releaseModule : Parser.parse(Path.of(wasm));
+                    loaded = symbols = new Symbols(module);
+                }
+            }
+        }
+        return new GuestProfiler(Path.of(System.getProperty(PROFILE)), loaded);
+    }
+
+    WasmModule module() {
+        return functions.module;
+    }
+
+    ExecutionListener listener() {
+        return (instruction, stack) -> onInstruction(instruction);
+    }
+
+    private void onInstruction(Instruction instruction) {
+        int body = functions.bodyAt(instruction.address());
+        if (body < 0) {
+            return;
+        }
+        int function = functions.importedFunctions + body;
+        if (pendingCall && instruction.address() == functions.starts[body]) {
+            // entered a function defined in the module, calls to host functions come straight back
+            push(function);
+        } else if (current.function != function) {
+            // left one or more frames, through return, br to the function block or by falling off the end
+            Frame frame = current;
+            while (frame != root && frame.function != function) {
+                frame = frame.parent;
+            }
+            if (frame == root) {
+                push(function);
+            } else {
+                current = frame;
+            }
+        }
+        pendingCall = instruction.opcode() == OpCode.CALL || instruction.opcode() == OpCode.CALL_INDIRECT;
+        current.instructions++;
+    }
+
+    private void push(int function) {
+        calls[function]++;
+        current = current.child(function);
+    }
+
+    void write(String command) {
+        String prefix = command + "-" + RUNS.incrementAndGet();
+        try {
+            Files.createDirectories(outputDir);
+            Path folded = outputDir.resolve(prefix + ".folded");
+            try (Writer writer = Files.newBufferedWriter(folded)) {
+                writeFolded(writer, root, new ArrayList<>());
+            }
+            try (Writer writer = Files.newBufferedWriter(outputDir.resolve(prefix + ".calls"))) {
+                Integer[] byCalls = new Integer[calls.length];
+                for (int i = 0; i < calls.length; i++) {
+                    byCalls[i] = i;
+                }
+                Arrays.sort(byCalls, (a, b) -> Long.compare(calls[b], calls[a]));
+                for (int function : byCalls) {
+                    if (calls[function] == 0) {
+                        break;
+                    }
+                    writer.write(calls[function] + " " + functions.nameOf(function) + "\n");
+                }
+            }
+            log.infof("protoc-wrapper guest profile written to %s", folded);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write the protoc-wrapper guest profile", e);
+        }
+    }
+
+    private void writeFolded(Writer writer, Frame frame, List<String> stack) throws IOException {
+        if (frame != root) {
+            stack.add(functions.nameOf(frame.function));
+            if (frame.instructions > 0) {
+                writer.write(String.join(";", stack) + " " + frame.instructions + "\n");
+            }
+        }
+        for (Frame child : frame.children.values()) {
+            writeFolded(writer, child, stack);
+        }
+        if (frame != root) {
+            stack.remove(stack.size() - 1);
+        }
+    }
+
+    private static final class Frame {
+        final Frame parent;
+        final int function;
+        final Map<Integer, Frame> children = new HashMap<>();
+        long instructions;
+
+        Frame(Frame parent, int function) {
+            this.parent = parent;
+            this.function = function;
+        }
+
+        Frame child(int function) {
+            return children.computeIfAbsent(function, f -> new Frame(this, f));
+        }
+    }
+
+    /**
+     * Start address of every function body and the function names, shared by all the runs.
+     */
+    private static final class Symbols {
+        final WasmModule module;
+        final int importedFunctions;
+        final long[] starts;
+        final NameCustomSection names;
+
+        Symbols(WasmModule module) {
+            this.module = module;
+            this.importedFunctions = module.importSection().count(ExternalType.FUNCTION);
+            int bodies = module.codeSection().functionBodyCount();
+            this.starts = new long[bodies];
+            for (int i = 0; i < bodies; i++) {
+                FunctionBody body = module.codeSection().getFunctionBody(i);
+                starts[i] = body.instructions().isEmpty() ? Long.MAX_VALUE : body.instructions().get(0).address();
+            }
+            this.names = module.nameSection();
+        }
+
+        /**
+         * Function bodies are laid out in order in the code section, so the body containing an address is the last
+         * one starting before it.
+         */
+        int bodyAt(long address) {
+            int index = Arrays.binarySearch(starts, address);
+            return index >= 0 ? index : -index - 2;
+        }
+
+        String nameOf(int function) {
+            String name = names == null ? null : names.nameOf(function);
+            return name == null ? "func[" + function + "]" : name.replace(';', ':').replace(' ', '_');
+        }
+    }
+}
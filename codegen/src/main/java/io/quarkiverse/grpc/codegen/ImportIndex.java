@@ -0,0 +1,159 @@
+package io.quarkiverse.grpc.codegen;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jboss.logging.Logger;
+
+import io.quarkus.bootstrap.prebuild.CodeGenException;
+import io.quarkus.maven.dependency.ResolvedDependency;
+import io.quarkus.paths.OpenPathTree;
+import io.quarkus.runtime.util.HashUtil;
+
+/**
+ * The proto files that the dependencies scanned for imports can provide, by import path.
+ * <p>
+ * Rather than extracting every proto of those dependencies up front, {@link #resolve} follows the imports of the
+ * protos to generate and extracts only the files they import, directly or not. Files that are not in the index are
+ * left to protoc-wrapper, they may come from a prebuilt descriptor set.
+ */
+final class ImportIndex {
+    private static final Logger log = Logger.getLogger(ImportIndex.class);
+
+    private static final Pattern COMMENT = Pattern.compile("//[^\n]*|/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern IMPORT = Pattern.compile("\\bimport\\s+(?:public\\s+|weak\\s+)?\"([^\"]+)\"\\s*;");
+
+    private record Source(ResolvedDependency artifact, String entry) {
+    }
+
+    private final Path extractionDir;
+    private final Map<String, Source> sources = new HashMap<>();
+    // files extracted by previous resolutions, dev mode resolves again on every reload
+    private final Map<String, Path> extracted = new HashMap<>();
+
+    ImportIndex(Path extractionDir) {
+        this.extractionDir = extractionDir;
+    }
+
+    /**
+     * Adds a proto of a dependency, unless an earlier dependency already provides the same import path.
+     *
+     * @param entry the path of the proto in the content tree of the artifact, which is also its import path
+     */
+    void add(ResolvedDependency artifact, String entry) {
+        sources.putIfAbsent(entry, new Source(artifact, entry));
+    }
+
+    int size() {
+        return sources.size();
+    }
+
+    /**
+     * Finds the dependency protos imported by the given files, and by the protos they import.
+     *
+     * @param files the files of the workdir, by path relative to the workdir, they take precedence over the index
+     * @return the location of every imported dependency proto, by import path
+     */
+    synchronized Map<String, Path> resolve(Map<String, Path> files) throws CodeGenException {
+        Map<String, Path> resolved = new LinkedHashMap<>();
+        Set<String> seen = new HashSet<>(files.keySet());
+        Deque<Path> queue = new ArrayDeque<>();
+        for (Map.Entry<String, Path> file : files.entrySet()) {
+            if (file.getKey().endsWith(".proto")) {
+                queue.add(file.getValue());
+            }
+        }
+        Map<ResolvedDependency, OpenPathTree> trees = new HashMap<>();
+        try {
+            while (!queue.isEmpty()) {
+                for (String imported : imports(queue.poll())) {
+                    if (!seen.add(imported)) {
+                        continue;
+                    }
+                    Source source = sources.get(imported);
+                    if (source == null) {
+                        continue;
+                    }
+                    Path file = extract(source, trees);
+                    if (file != null) {
+                        resolved.put(imported, file);
+                        queue.add(file);
+                    }
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            throw new CodeGenException("Failed to resolve the imported proto files", e);
+        } finally {
+            for (OpenPathTree tree : trees.values()) {
+                try {
+                    tree.close();
+                } catch (IOException e) {
+                    log.debugf(e, "Failed to close %s", tree);
+                }
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * @return the import paths of a proto file, a best-effort parse that ignores the imports in comments
+     */
+    static List<String> imports(Path file) throws IOException {
+        String content = COMMENT.matcher(Files.readString(file, StandardCharsets.UTF_8)).replaceAll(" ");
+        List<String> imports = new ArrayList<>();
+        Matcher matcher = IMPORT.matcher(content);
+        while (matcher.find()) {
+            imports.add(matcher.group(1));
+        }
+        return imports;
+    }
+
+    private Path extract(Source source, Map<ResolvedDependency, OpenPathTree> trees) {
+        Path file = extracted.get(source.entry());
+        if (file != null && Files.isRegularFile(file)) {
+            return file;
+        }
+        OpenPathTree tree = trees.computeIfAbsent(source.artifact(), artifact -> artifact.getContentTree().open());
+        file = tree.apply(source.entry(), pathVisit -> {
+            if (pathVisit == null) {
+                return null;
+            }
+            if (Files.isDirectory(pathVisit.getRoot())) {
+                // the output directory of another module, its protos are used in place
+                return pathVisit.getPath();
+            }
+            Path outPath = extractionDir.resolve(HashUtil.sha1(source.artifact().toCompactCoords())).normalize()
+                    .toAbsolutePath();
+            for (Path part : pathVisit.getRoot().relativize(pathVisit.getPath())) {
+                outPath = outPath.resolve(part.toString());
+            }
+            try {
+                Files.createDirectories(outPath.getParent());
+                Files.copy(pathVisit.getPath(), outPath, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to extract proto file " + pathVisit.getPath() + " to target: "
+                        + outPath, e);
+            }
+            return outPath;
+        });
+        if (file != null) {
+            extracted.put(source.entry(), file);
+        }
+        return file;
+    }
+}
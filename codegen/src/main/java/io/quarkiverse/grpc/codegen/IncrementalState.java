@@ -0,0 +1,266 @@
+package io.quarkiverse.grpc.codegen;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jboss.logging.Logger;
+
+import com.google.protobuf.DescriptorProtos;
+
+import io.quarkus.bootstrap.prebuild.CodeGenException;
+import io.quarkus.runtime.util.HashUtil;
+import io.roastedroot.zerofs.Configuration;
+import io.roastedroot.zerofs.ZeroFs;
+
+/**
+ * What {@link GrpcZeroCodeGen} keeps between two runs on the same output directory in the same JVM.
+ * <p>
+ * Dev mode triggers the code generation again on every proto change. Instead of starting from scratch, the in-memory
+ * workdir stays around and only the files whose content changed are copied again, the descriptors of the files that
+ * are not affected by the change are reused, and only the edited files and the files importing them, directly or not,
+ * are generated again. The dependency scan is reused as long as the dependencies and the configuration stay the same.
+ * The descriptors come from a resident protoc-wrapper when the engine has room for one, which keeps its own parsed
+ * files across runs.
+ * <p>
+ * Anything unexpected (a failed run, a prebuilt descriptor set that changed, generated files deleted behind our back)
+ * falls back to generating everything.
+ * <p>
+ * A state holds an in-memory file system and possibly a resident protoc-wrapper with its engine lease. They are
+ * closed when the dependencies or the configuration of the output directory change, when a run of the output
+ * directory is not incremental, and when the JVM exits.
+ */
+final class IncrementalState implements Closeable {
+    private static final Logger log = Logger.getLogger(IncrementalState.class);
+
+    private static final Map<Path, IncrementalState> STATES = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(IncrementalState::closeAll, "grpc-zero-incremental-cleanup"));
+    }
+
+    private String dependencyScanKey;
+    private GrpcZeroCodeGen.DependencyScan dependencyScan;
+    private FileSystem fileSystem;
+    private ProtocWrapperServer server;
+    // content hash of every file of the in-memory workdir, by path relative to the workdir
+    private final Map<String, String> contentHashes = new HashMap<>();
+    // descriptors parsed by previous runs, files to generate keep their comments
+    private final Map<String, DescriptorProtos.FileDescriptorProto> descriptors = new HashMap<>();
+    private final Set<String> generatedProtos = new HashSet<>();
+    private final Set<Path> outputs = new HashSet<>();
+    private boolean valid;
+
+    private IncrementalState() {
+    }
+
+    static IncrementalState forOutDir(Path outDir) {
+        return STATES.computeIfAbsent(outDir.toAbsolutePath().normalize(), k -> new IncrementalState());
+    }
+
+    /**
+     * Forgets the state of the output directory, if any, and closes it.
+     */
+    static void drop(Path outDir) {
+        IncrementalState state = STATES.remove(outDir.toAbsolutePath().normalize());
+        if (state != null) {
+            state.close();
+        }
+    }
+
+    private static void closeAll() {
+        for (Path outDir : List.copyOf(STATES.keySet())) {
+            drop(outDir);
+        }
+    }
+
+    /**
+     * @return the dependency scan of the previous run, or {@code null} when it was made with other dependencies or
+     *         another configuration, or when the files it extracted are gone
+     */
+    GrpcZeroCodeGen.DependencyScan dependencyScan(String key) {
+        if (dependencyScan == null || !key.equals(dependencyScanKey) || !dependencyScan.isPresent()) {
+            return null;
+        }
+        return dependencyScan;
+    }
+
+    void dependencyScan(String key, GrpcZeroCodeGen.DependencyScan scan) {
+        if (dependencyScanKey != null && !key.equals(dependencyScanKey)) {
+            // other dependencies or another configuration, e.g. lite or kotlin, nothing of the previous runs can be
+            // reused
+            close();
+        }
+        this.dependencyScanKey = key;
+        this.dependencyScan = scan;
+    }
+
+    FileSystem fileSystem() {
+        if (fileSystem == null) {
+            fileSystem = ZeroFs.newFileSystem(Configuration.unix().toBuilder().setAttributeViews("unix").build());
+        }
+        return fileSystem;
+    }
+
+    /**
+     * Brings the in-memory workdir in line with {@code content}, copying only the files whose content changed since
+     * the previous run and removing the ones that are gone.
+     *
+     * @param content the source of every file of the workdir, by path relative to the workdir
+     * @return the paths, relative to the workdir, of the files that have been added, changed or removed
+     */
+    Set<String> sync(Path workdir, Map<String, Path> content, GrpcZeroEvents.ZeroFsPopulation population)
+            throws IOException {
+        Set<String> changed = new HashSet<>();
+        for (Map.Entry<String, Path> file : content.entrySet()) {
+            byte[] bytes = Files.readAllBytes(file.getValue());
+            String hash = HashUtil.sha1(bytes);
+            if (!hash.equals(contentHashes.put(file.getKey(), hash))) {
+                Path target = workdir.resolve(file.getKey());
+                if (target.getParent() != null) {
+                    Files.createDirectories(target.getParent());
+                }
+                Files.write(target, bytes);
+                changed.add(file.getKey());
+                population.fileCount++;
+                population.bytesIn += bytes.length;
+            }
+        }
+        for (Iterator<String> files = contentHashes.keySet().iterator(); files.hasNext();) {
+            String file = files.next();
+            if (!content.containsKey(file)) {
+                Files.deleteIfExists(workdir.resolve(file));
+                files.remove();
+                changed.add(file);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Where the run gets its descriptors from: the resident protoc-wrapper, told about the changed files first, or
+     * one-shot runs when it can't be started. The resident protoc-wrapper is started again when the prebuilt
+     * descriptor sets change, as it loads them once.
+     *
+     * @param changed the files of the workdir that changed since the previous run, see {@link #sync}
+     * @param resident whether a resident protoc-wrapper may be started, one already running is stopped otherwise
+     */
+    GrpcZeroCodeGen.DescriptorLoader descriptorLoader(Path workdir, Set<String> changed, String descriptorSetDir,
+            boolean resident) throws IOException {
+        if (server != null && (!resident || !server.isAlive()
+                || changed.stream().anyMatch(file -> file.startsWith(descriptorSetDir + "/")))) {
+            server.close();
+            server = null;
+        } else if (server != null) {
+            try {
+                log.debugf("protoc-wrapper server invalidated %s", server.invalidate(changed));
+            } catch (IOException | CodeGenException e) {
+                log.debug("protoc-wrapper server failed to invalidate, restarting it", e);
+                server.close();
+                server = null;
+            }
+        }
+        if (server == null && resident) {
+            server = ProtocWrapperServer.start(workdir, GrpcZeroCodeGen.descriptorSetIn(workdir));
+        }
+        GrpcZeroCodeGen.DescriptorLoader oneShot = GrpcZeroCodeGen.oneShot(workdir);
+        if (server == null) {
+            return oneShot;
+        }
+        ProtocWrapperServer resident = server;
+        return (fileNames, includeSourceInfo, report) -> {
+            try {
+                return resident.descriptors(fileNames, includeSourceInfo);
+            } catch (IOException e) {
+                log.debug("protoc-wrapper server is gone, falling back to one-shot runs", e);
+                return oneShot.load(fileNames, includeSourceInfo, report);
+            }
+        };
+    }
+
+    /**
+     * Decides what the run has to generate, and forgets the descriptors invalidated by the changed files.
+     *
+     * @param protoNames all the files to generate
+     * @param changed the files of the workdir that changed since the previous run, see {@link #sync}
+     * @param descriptorSetDir the workdir directory of the prebuilt descriptor sets
+     * @return the files to generate again, in the order of {@code protoNames}
+     */
+    List<String> toGenerate(List<String> protoNames, Set<String> changed, String descriptorSetDir) {
+        boolean reuse = valid
+                && changed.stream().noneMatch(file -> file.startsWith(descriptorSetDir + "/"))
+                && outputs.stream().allMatch(Files::isRegularFile);
+        valid = false;
+        if (!reuse) {
+            descriptors.clear();
+            generatedProtos.clear();
+            outputs.clear();
+            return protoNames;
+        }
+
+        Set<String> invalid = ProtoGraph.of(descriptors.values()).importersOf(changed);
+        descriptors.keySet().removeAll(invalid);
+
+        List<String> toGenerate = new ArrayList<>();
+        for (String protoName : protoNames) {
+            if (invalid.contains(protoName) || !generatedProtos.contains(protoName)) {
+                toGenerate.add(protoName);
+            }
+        }
+        return toGenerate;
+    }
+
+    /**
+     * The descriptors still valid, to be completed by the run with the descriptors it parses.
+     */
+    Map<String, DescriptorProtos.FileDescriptorProto> descriptors() {
+        return descriptors;
+    }
+
+    /**
+     * Records a successful run, the next one can build on it.
+     */
+    void generated(Collection<String> protoNames, Collection<Path> files) {
+        generatedProtos.addAll(protoNames);
+        outputs.addAll(files);
+        valid = true;
+    }
+
+    /**
+     * Stops the resident protoc-wrapper, which returns its lease to the engine, and releases the in-memory workdir.
+     * The next run starts from scratch.
+     */
+    @Override
+    public void close() {
+        valid = false;
+        dependencyScanKey = null;
+        dependencyScan = null;
+        contentHashes.clear();
+        descriptors.clear();
+        generatedProtos.clear();
+        outputs.clear();
+        if (server != null) {
+            server.close();
+            server = null;
+        }
+        if (fileSystem != null) {
+            try {
+                fileSystem.close();
+            } catch (IOException e) {
+                log.debug("Failed to close the in-memory workdir", e);
+            }
+            fileSystem = null;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package io.quarkiverse.grpc.codegen;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.microprofile.config.Config;
+
+import com.google.protobuf.DescriptorProtos;
+import com.google.protobuf.compiler.PluginProtos;
+
+/**
+ * Forces {@code java_multiple_files = true} on the protos of the selected packages, so that their messages, enums and
+ * services get a source file each instead of all being nested in one outer class that javac compiles on a single
+ * thread.
+ * <p>
+ * The generated class names change, so only the protos whose java classes are generated by the run are rewritten:
+ * the imports coming compiled with a dependency keep the names they were compiled with.
+ */
+final class MultipleFilesOverride {
+    static final String PACKAGES = "quarkus.generate-code.grpc.java-multiple-files.packages";
+
+    private final Set<String> packages;
+    private final Set<String> generated;
+    private final FileOptionsOverride override = new FileOptionsOverride("java_multiple_files = true",
+            this::applies, options -> options.toBuilder().setJavaMultipleFiles(true).build());
+
+    /**
+     * @param generated the protos the java generator is run for
+     */
+    MultipleFilesOverride(Collection<String> packages, Collection<String> generated) {
+        this.packages = Set.copyOf(packages);
+        this.generated = Set.copyOf(generated);
+    }
+
+    static MultipleFilesOverride of(Config config, Collection<String> generated) {
+        List<String> packages = GrpcZeroCodeGen.listProperty(config, PACKAGES);
+        return new MultipleFilesOverride(packages, packages.isEmpty() ? List.of() : generated);
+    }
+
+    boolean isEmpty() {
+        return packages.isEmpty();
+    }
+
+    boolean applies(DescriptorProtos.FileDescriptorProto file) {
+        return !file.getOptions().getJavaMultipleFiles() && generated.contains(file.getName())
+                && FileOptionsOverride.inPackages(file.getPackage(), packages);
+    }
+
+    PluginProtos.CodeGeneratorRequest apply(PluginProtos.CodeGeneratorRequest request) {
+        return isEmpty() ? request : override.apply(request);
+    }
+}
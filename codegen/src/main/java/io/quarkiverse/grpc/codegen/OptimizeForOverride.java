@@ -0,0 +1,67 @@
+package io.quarkiverse.grpc.codegen;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.microprofile.config.Config;
+
+import com.google.protobuf.DescriptorProtos;
+import com.google.protobuf.compiler.PluginProtos;
+
+import io.quarkus.maven.dependency.ResolvedDependency;
+
+/**
+ * Forces {@code optimize_for = SPEED} on the selected protos declaring {@code CODE_SIZE}, so that protobuf-java
+ * generates their parsing and serialization code instead of going through reflection.
+ * <p>
+ * Only the descriptors handed to the generators are rewritten: the proto sources and the descriptor sets keep the
+ * declared option.
+ */
+final class OptimizeForOverride {
+    static final String ARTIFACTS = "quarkus.generate-code.grpc.optimize-for-speed.artifacts";
+    static final String PACKAGES = "quarkus.generate-code.grpc.optimize-for-speed.packages";
+
+    // group:artifact of the scanned dependencies, or all
+    private final Set<String> artifacts;
+    private final Set<String> packages;
+    private final Map<String, ResolvedDependency> protoArtifacts;
+    private final FileOptionsOverride override = new FileOptionsOverride("optimize_for = SPEED instead of CODE_SIZE",
+            this::applies,
+            options -> options.toBuilder().setOptimizeFor(DescriptorProtos.FileOptions.OptimizeMode.SPEED).build());
+
+    /**
+     * @param protoArtifacts the dependency providing each proto scanned with {@code scan-for-proto}, by proto name
+     */
+    OptimizeForOverride(Collection<String> artifacts, Collection<String> packages,
+            Map<String, ResolvedDependency> protoArtifacts) {
+        this.artifacts = Set.copyOf(artifacts);
+        this.packages = Set.copyOf(packages);
+        this.protoArtifacts = protoArtifacts;
+    }
+
+    static OptimizeForOverride of(Config config, Map<String, ResolvedDependency> protoArtifacts) {
+        return new OptimizeForOverride(GrpcZeroCodeGen.listProperty(config, ARTIFACTS),
+                GrpcZeroCodeGen.listProperty(config, PACKAGES), protoArtifacts);
+    }
+
+    boolean isEmpty() {
+        return artifacts.isEmpty() && packages.isEmpty();
+    }
+
+    boolean applies(DescriptorProtos.FileDescriptorProto file) {
+        if (file.getOptions().getOptimizeFor() != DescriptorProtos.FileOptions.OptimizeMode.CODE_SIZE) {
+            return false;
+        }
+        if (FileOptionsOverride.inPackages(file.getPackage(), packages)) {
+            return true;
+        }
+        ResolvedDependency artifact = protoArtifacts.get(file.getName());
+        return artifact != null && (artifacts.contains("all")
+                || artifacts.contains(artifact.getGroupId() + ":" + artifact.getArtifactId()));
+    }
+
+    PluginProtos.CodeGeneratorRequest apply(PluginProtos.CodeGeneratorRequest request) {
+        return isEmpty() ? request : override.apply(request);
+    }
+}
@@ -0,0 +1,242 @@
+package io.quarkiverse.grpc.codegen;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.protobuf.DescriptorProtos;
+
+/**
+ * The import graph of a set of proto files.
+ * <p>
+ * Files get an index when first seen, either declared with {@link #add} or only imported so far, and the imports are
+ * kept as arrays of indexes, so that walking the graph doesn't hash names. It's what the request building, the
+ * incremental generation and the pruning share to find what a file imports, what imports it, and in which order
+ * files have to be handed to the generators.
+ */
+final class ProtoGraph {
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    // null for the files that are only imported so far
+    private final List<int[]> imports = new ArrayList<>();
+    // the reverse edges, built on first use
+    private List<int[]> importers;
+
+    static ProtoGraph of(Collection<DescriptorProtos.FileDescriptorProto> files) {
+        ProtoGraph graph = new ProtoGraph();
+        for (DescriptorProtos.FileDescriptorProto file : files) {
+            graph.add(file.getName(), file.getDependencyList());
+        }
+        return graph;
+    }
+
+    /**
+     * Declares a file and its imports, the first declaration of a file wins.
+     */
+    void add(String name, List<String> dependencies) {
+        int id = id(name);
+        if (imports.get(id) != null) {
+            return;
+        }
+        int[] edges = new int[dependencies.size()];
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = id(dependencies.get(i));
+        }
+        imports.set(id, edges);
+        importers = null;
+    }
+
+    /**
+     * @return whether the file has been declared, rather than only imported
+     */
+    boolean contains(String name) {
+        Integer id = ids.get(name);
+        return id != null && imports.get(id) != null;
+    }
+
+    int size() {
+        return names.size();
+    }
+
+    /**
+     * @return the given files and all the files they import, directly or not
+     */
+    Set<String> importsOf(Collection<String> files) {
+        return closure(files, imports);
+    }
+
+    /**
+     * @return the given files and all the files importing them, directly or not
+     */
+    Set<String> importersOf(Collection<String> files) {
+        if (importers == null) {
+            List<List<Integer>> reverse = new ArrayList<>(names.size());
+            for (int i = 0; i < names.size(); i++) {
+                reverse.add(new ArrayList<>(2));
+            }
+            for (int id = 0; id < imports.size(); id++) {
+                int[] edges = imports.get(id);
+                if (edges != null) {
+                    for (int dependency : edges) {
+                        reverse.get(dependency).add(id);
+                    }
+                }
+            }
+            importers = new ArrayList<>(names.size());
+            for (List<Integer> edges : reverse) {
+                importers.add(edges.stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+        return closure(files, importers);
+    }
+
+    /**
+     * Orders the given files and the files they import, directly or not, so that every file comes after its imports,
+     * as {@code CodeGeneratorRequest.proto_file} expects. Files come in the order of {@code roots} and of their
+     * imports otherwise. Only imported files that have not been declared are left out, as are the edges closing an
+     * import cycle.
+     */
+    List<String> topologicalOrder(Collection<String> roots) {
+        List<String> order = new ArrayList<>();
+        BitSet visited = new BitSet(names.size());
+        // pairs of file index and position in its imports
+        Deque<int[]> stack = new ArrayDeque<>();
+        for (String root : roots) {
+            Integer rootId = ids.get(root);
+            if (rootId == null || visited.get(rootId)) {
+                continue;
+            }
+            visited.set(rootId);
+            stack.push(new int[] { rootId, 0 });
+            while (!stack.isEmpty()) {
+                int[] frame = stack.peek();
+                int[] edges = imports.get(frame[0]);
+                if (edges != null && frame[1] < edges.length) {
+                    int next = edges[frame[1]++];
+                    if (!visited.get(next)) {
+                        visited.set(next);
+                        stack.push(new int[] { next, 0 });
+                    }
+                } else {
+                    stack.pop();
+                    if (edges != null) {
+                        order.add(names.get(frame[0]));
+                    }
+                }
+            }
+        }
+        return order;
+    }
+
+    private int id(String name) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            id = names.size();
+            ids.put(name, id);
+            names.add(name);
+            imports.add(null);
+        }
+        return id;
+    }
+
+    private Set<String> closure(Collection<String> files, List<int[]> edges) {
+        Set<String> closure = new LinkedHashSet<>();
+        BitSet visited = new BitSet(names.size());
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (String file : files) {
+            Integer id = ids.get(file);
+            if (id == null) {
+                closure.add(file);
+            } else if (!visited.get(id)) {
+                visited.set(id);
+                queue.add(id);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int id = queue.poll();
+            closure.add(names.get(id));
+            int[] next = id < edges.size() ? edges.get(id) : null;
+            if (next != null) {
+                for (int other : next) {
+                    if (!visited.get(other)) {
+                        visited.set(other);
+                        queue.add(other);
+                    }
+                }
+            }
+        }
+        return closure;
+    }
+
+    /**
+     * The directories protos are imported from, to name a proto file after the first added one containing it in a
+     * single walk down a trie of path components, rather than trying every directory in turn.
+     * <p>
+     * The first directory wins, not the deepest: the directory a dependency was extracted to comes before the
+     * directories of its files, so {@code protobuf/role.proto} of a jar keeps its package directory.
+     */
+    static final class Roots {
+        private final Node top = new Node();
+        private int added;
+
+        private static final class Node {
+            final Map<String, Node> children = new HashMap<>();
+            // the order in which the directory was added, -1 when it is not a root
+            int order = -1;
+        }
+
+        void add(String directory) {
+            Node node = top;
+            for (String component : components(Path.of(directory))) {
+                node = node.children.computeIfAbsent(component, k -> new Node());
+            }
+            if (node.order < 0) {
+                node.order = added++;
+            }
+        }
+
+        /**
+         * @return the path of the file relative to the first added directory containing it, or its file name when no
+         *         directory does
+         */
+        String relativize(String file) {
+            List<String> components = components(Path.of(file));
+            Node node = top;
+            int relativeStart = -1;
+            int firstOrder = Integer.MAX_VALUE;
+            for (int i = 0; i < components.size() - 1; i++) {
+                node = node.children.get(components.get(i));
+                if (node == null) {
+                    break;
+                }
+                if (node.order >= 0 && node.order < firstOrder) {
+                    firstOrder = node.order;
+                    relativeStart = i + 1;
+                }
+            }
+            if (relativeStart < 0) {
+                return components.get(components.size() - 1);
+            }
+            return String.join("/", components.subList(relativeStart, components.size()));
+        }
+
+        private static List<String> components(Path path) {
+            Path normalized = path.toAbsolutePath().normalize();
+            List<String> components = new ArrayList<>(normalized.getNameCount() + 1);
+            components.add(String.valueOf(normalized.getRoot()));
+            for (Path name : normalized) {
+                components.add(name.toString());
+            }
+            return components;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package io.quarkiverse.grpc.codegen;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.protobuf.DescriptorProtos;
+
+/**
+ * Finds the proto files whose types are used, directly or not, by a set of root files.
+ * <p>
+ * A file counts as used when one of its messages or enums is the type of a field, the input or output of a method,
+ * or the extendee of an extension of a used file. Files are the unit: every message of a used file is generated, so
+ * the types they refer to have to be generated as well.
+ */
+final class ProtoPruning {
+
+    private ProtoPruning() {
+    }
+
+    /**
+     * @param files descriptors of the roots and of everything they import
+     * @param roots names of the files that are always generated
+     * @return the names of the roots and of the files they use, among {@code files}
+     */
+    static Set<String> reachableFiles(Collection<DescriptorProtos.FileDescriptorProto> files, Collection<String> roots) {
+        Map<String, DescriptorProtos.FileDescriptorProto> byName = new HashMap<>();
+        Map<String, String> fileOfType = new HashMap<>();
+        for (DescriptorProtos.FileDescriptorProto file : files) {
+            byName.putIfAbsent(file.getName(), file);
+            String scope = file.getPackage().isEmpty() ? "" : "." + file.getPackage();
+            for (DescriptorProtos.DescriptorProto message : file.getMessageTypeList()) {
+                indexTypes(scope, message, file.getName(), fileOfType);
+            }
+            for (DescriptorProtos.EnumDescriptorProto enumType : file.getEnumTypeList()) {
+                fileOfType.putIfAbsent(scope + "." + enumType.getName(), file.getName());
+            }
+        }
+
+        Set<String> reachable = new LinkedHashSet<>();
+        Deque<String> queue = new ArrayDeque<>(roots);
+        while (!queue.isEmpty()) {
+            String name = queue.poll();
+            DescriptorProtos.FileDescriptorProto file = byName.get(name);
+            if (file == null || !reachable.add(name)) {
+                continue;
+            }
+            Set<String> types = new HashSet<>();
+            usedTypes(file, types);
+            for (String type : types) {
+                String definedIn = fileOfType.get(type);
+                if (definedIn != null && !reachable.contains(definedIn)) {
+                    queue.add(definedIn);
+                }
+            }
+        }
+        return reachable;
+    }
+
+    private static void indexTypes(String scope, DescriptorProtos.DescriptorProto message, String fileName,
+            Map<String, String> fileOfType) {
+        String name = scope + "." + message.getName();
+        fileOfType.putIfAbsent(name, fileName);
+        for (DescriptorProtos.DescriptorProto nested : message.getNestedTypeList()) {
+            indexTypes(name, nested, fileName, fileOfType);
+        }
+        for (DescriptorProtos.EnumDescriptorProto enumType : message.getEnumTypeList()) {
+            fileOfType.putIfAbsent(name + "." + enumType.getName(), fileName);
+        }
+    }
+
+    private static void usedTypes(DescriptorProtos.FileDescriptorProto file, Set<String> types) {
+        for (DescriptorProtos.DescriptorProto message : file.getMessageTypeList()) {
+            usedTypes(message, types);
+        }
+        for (DescriptorProtos.FieldDescriptorProto extension : file.getExtensionList()) {
+            usedTypes(extension, types);
+        }
+        for (DescriptorProtos.ServiceDescriptorProto service : file.getServiceList()) {
+            for (DescriptorProtos.MethodDescriptorProto method : service.getMethodList()) {
+                types.add(method.getInputType());
+                types.add(method.getOutputType());
+            }
+        }
+    }
+
+    private static void usedTypes(DescriptorProtos.DescriptorProto message, Set<String> types) {
+        for (DescriptorProtos.FieldDescriptorProto field : message.getFieldList()) {
+            usedTypes(field, types);
+        }
+        for (DescriptorProtos.FieldDescriptorProto extension : message.getExtensionList()) {
+            usedTypes(extension, types);
+        }
+        for (DescriptorProtos.DescriptorProto nested : message.getNestedTypeList()) {
+            usedTypes(nested, types);
+        }
+    }
+
+    private static void usedTypes(DescriptorProtos.FieldDescriptorProto field, Set<String> types) {
+        if (field.hasTypeName()) {
+            types.add(field.getTypeName());
+        }
+        if (field.hasExtendee()) {
+            types.add(field.getExtendee());
+        }
+    }
+}
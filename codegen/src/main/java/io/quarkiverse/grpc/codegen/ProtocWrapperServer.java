@@ -0,0 +1,278 @@
+package io.quarkiverse.grpc.codegen;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.logging.Logger;
+
+import com.dylibso.chicory.wasi.WasiExitException;
+import com.dylibso.chicory.wasi.WasiOptions;
+import com.google.protobuf.DescriptorProtos;
+
+import io.quarkus.bootstrap.prebuild.CodeGenException;
+
+/**
+ * A protoc-wrapper instance running the {@code serve} command, which keeps the files it parsed across requests: once
+ * told which files changed with {@link #invalidate}, it only parses those again.
+ * <p>
+ * The instance runs on its own daemon thread for as long as the server is open, holding a resident lease of the
+ * {@link CodegenEngine}. Requests and responses go through stdin and stdout as length prefixed frames, see
+ * {@code main.cc}.
+ */
+final class ProtocWrapperServer implements Closeable {
+    private static final Logger log = Logger.getLogger(ProtocWrapperServer.class);
+
+    private static final int OK = 0;
+
+    private final Pipe requests = new Pipe();
+    private final Pipe responses = new Pipe();
+    private final ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+    private final Thread thread;
+    private volatile boolean alive = true;
+
+    private ProtocWrapperServer(Path workdir, String descriptorSetIn, CodegenEngine.Lease lease) {
+        List<String> command = new ArrayList<>(List.of("protoc-wrapper", "serve"));
+        if (descriptorSetIn != null) {
+            command.add("--descriptor_set_in=" + descriptorSetIn);
+        }
+        var wasiOpts = WasiOptions.builder()
+                .withStdin(requests.input())
+                .withStdout(responses.output())
+                .withStderr(stderr)
+                .withArguments(command)
+                .withDirectory(workdir.toString(), workdir)
+                .build();
+        this.thread = new Thread(() -> {
+            try (lease) {
+                CodegenEngine.get().run(lease, wasiOpts, "serve", 0, () -> 0, new GrpcZeroReport());
+            } catch (WasiExitException exit) {
+                if (exit.exitCode() != 0) {
+                    log.debugf("protoc-wrapper server exited with %d: %s", exit.exitCode(), stderr);
+                }
+            } catch (RuntimeException e) {
+                log.debug("protoc-wrapper server failed", e);
+            } finally {
+                alive = false;
+                responses.close();
+            }
+        }, "grpc-zero-protoc-wrapper-server");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * @param descriptorSetIn the prebuilt descriptor sets of the workdir, in the {@code --descriptor_set_in} form
+     * @return the started server, or {@code null} when the engine has no room for a resident instance
+     */
+    static ProtocWrapperServer start(Path workdir, String descriptorSetIn) {
+        CodegenEngine.Lease lease = CodegenEngine.get().tryAcquireResident();
+        if (lease == null) {
+            log.debug("No room for a resident protoc-wrapper, descriptors are parsed by one-shot runs");
+            return null;
+        }
+        ProtocWrapperServer server = new ProtocWrapperServer(workdir, descriptorSetIn, lease);
+        server.thread.start();
+        return server;
+    }
+
+    boolean isAlive() {
+        return alive;
+    }
+
+    /**
+     * Same as {@link GrpcZeroCodeGen#getDescriptor(Path, List, boolean, GrpcZeroReport)}, reusing what the server
+     * parsed before.
+     *
+     * @throws CodeGenException when a file can't be imported
+     * @throws IOException when the server is gone
+     */
+    DescriptorProtos.FileDescriptorSet descriptors(List<String> fileNames, boolean includeSourceInfo)
+            throws CodeGenException, IOException {
+        var event = new GrpcZeroEvents.Descriptors();
+        event.begin();
+        List<String> command = new ArrayList<>();
+        command.add("descriptors");
+        if (includeSourceInfo) {
+            command.add("--include_source_info");
+        }
+        command.addAll(fileNames);
+        byte[] response = request(command);
+        var descriptorSet = DescriptorProtos.FileDescriptorSet.parseFrom(response);
+        event.end();
+        if (event.shouldCommit()) {
+            event.protoFiles = String.join(",", fileNames);
+            event.fileCount = descriptorSet.getFileCount();
+            event.bytesOut = response.length;
+            event.commit();
+        }
+        return descriptorSet;
+    }
+
+    /**
+     * Tells the server which files of the workdir changed.
+     *
+     * @return the changed files and the files depending on them that the server had parsed
+     * @throws IOException when the server is gone
+     */
+    Set<String> invalidate(Collection<String> files) throws CodeGenException, IOException {
+        if (files.isEmpty()) {
+            return Set.of();
+        }
+        List<String> command = new ArrayList<>();
+        command.add("invalidate");
+        command.addAll(files);
+        String invalidated = new String(request(command), StandardCharsets.UTF_8);
+        return invalidated.isEmpty() ? Set.of() : new LinkedHashSet<>(Arrays.asList(invalidated.split("\n")));
+    }
+
+    private synchronized byte[] request(List<String> args) throws CodeGenException, IOException {
+        if (!alive) {
+            throw new EOFException("protoc-wrapper server is gone");
+        }
+        stderr.reset();
+        byte[] payload = String.join("\n", args).getBytes(StandardCharsets.UTF_8);
+        requests.write(frameHeader(payload.length), 0, 4);
+        requests.write(payload, 0, payload.length);
+
+        InputStream in = responses.input();
+        int size = readFrameHeader(in);
+        if (size < 1) {
+            throw new IOException("Invalid protoc-wrapper server response of " + size + " bytes");
+        }
+        int status = in.read();
+        byte[] response = in.readNBytes(size - 1);
+        if (status < 0 || response.length != size - 1) {
+            throw new EOFException("protoc-wrapper server is gone");
+        }
+        if (status != OK) {
+            // the diagnostics of protoc, e.g. the line of a syntax error, go to stderr
+            String diagnostics = stderr.toString(StandardCharsets.UTF_8).strip();
+            throw new CodeGenException("Error running protoc-wrapper: " + new String(response, StandardCharsets.UTF_8)
+                    + (diagnostics.isEmpty() ? "" : "\n" + diagnostics));
+        }
+        return response;
+    }
+
+    private static byte[] frameHeader(int size) {
+        return new byte[] { (byte) size, (byte) (size >>> 8), (byte) (size >>> 16), (byte) (size >>> 24) };
+    }
+
+    private static int readFrameHeader(InputStream in) throws IOException {
+        byte[] header = in.readNBytes(4);
+        if (header.length != 4) {
+            throw new EOFException("protoc-wrapper server is gone");
+        }
+        return (header[0] & 0xff) | (header[1] & 0xff) << 8 | (header[2] & 0xff) << 16 | (header[3] & 0xff) << 24;
+    }
+
+    /**
+     * Closing stdin ends the serve loop, the instance then exits and releases its lease.
+     */
+    @Override
+    public void close() {
+        requests.close();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Blocking byte pipe between the host and the guest thread. Unlike the piped streams of the JDK, it doesn't care
+     * which threads read and write: dev mode reloads don't all run on the same thread.
+     */
+    private static final class Pipe {
+        private byte[] buffer = new byte[8192];
+        private int start;
+        private int end;
+        private boolean closed;
+
+        synchronized void write(byte[] bytes, int offset, int length) throws IOException {
+            if (closed) {
+                throw new EOFException("Pipe closed");
+            }
+            if (end + length > buffer.length) {
+                int size = end - start;
+                if (size + length > buffer.length) {
+                    buffer = Arrays.copyOfRange(buffer, start, start + Math.max(2 * buffer.length, size + length));
+                } else {
+                    System.arraycopy(buffer, start, buffer, 0, size);
+                }
+                start = 0;
+                end = size;
+            }
+            System.arraycopy(bytes, offset, buffer, end, length);
+            end += length;
+            notifyAll();
+        }
+
+        synchronized int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (start == end && !closed) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while reading from the protoc-wrapper server");
+                }
+            }
+            if (start == end) {
+                return -1;
+            }
+            int read = Math.min(length, end - start);
+            System.arraycopy(buffer, start, bytes, offset, read);
+            start += read;
+            return read;
+        }
+
+        synchronized void close() {
+            closed = true;
+            notifyAll();
+        }
+
+        InputStream input() {
+            return new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    byte[] single = new byte[1];
+                    return Pipe.this.read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+                }
+
+                @Override
+                public int read(byte[] bytes, int offset, int length) throws IOException {
+                    return Pipe.this.read(bytes, offset, length);
+                }
+            };
+        }
+
+        OutputStream output() {
+            return new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    Pipe.this.write(new byte[] { (byte) b }, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] bytes, int offset, int length) throws IOException {
+                    Pipe.this.write(bytes, offset, length);
+                }
+            };
+        }
+    }
+}
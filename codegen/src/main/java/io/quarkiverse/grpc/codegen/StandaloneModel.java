@@ -0,0 +1,49 @@
+package io.quarkiverse.grpc.codegen;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import io.quarkus.bootstrap.model.ApplicationModel;
+import io.quarkus.bootstrap.model.ApplicationModelBuilder;
+import io.quarkus.maven.dependency.ResolvedDependencyBuilder;
+
+/**
+ * The application model of a code generation running outside of a Quarkus build: an application whose only
+ * dependencies are the ones to look for protos in.
+ */
+final class StandaloneModel {
+
+    private static final String GROUP_ID = "io.quarkiverse.grpc.zero";
+    private static final String VERSION = "0";
+
+    private StandaloneModel() {
+    }
+
+    static ApplicationModel empty() {
+        return of(List.of());
+    }
+
+    static ApplicationModel of(List<ResolvedDependencyBuilder> dependencies) {
+        ApplicationModelBuilder builder = new ApplicationModelBuilder()
+                .setAppArtifact(ResolvedDependencyBuilder.newInstance()
+                        .setGroupId(GROUP_ID)
+                        .setArtifactId("grpc-zero-standalone")
+                        .setVersion(VERSION));
+        for (ResolvedDependencyBuilder dependency : dependencies) {
+            builder.addDependency(dependency);
+        }
+        return builder.build();
+    }
+
+    /**
+     * A runtime dependency of the application, a jar or a directory.
+     */
+    static ResolvedDependencyBuilder dependency(String groupId, String artifactId, Path path) {
+        return ResolvedDependencyBuilder.newInstance()
+                .setGroupId(groupId)
+                .setArtifactId(artifactId)
+                .setVersion(VERSION)
+                .setResolvedPath(path)
+                .setRuntimeCp();
+    }
+}
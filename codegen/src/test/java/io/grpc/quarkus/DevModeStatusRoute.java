@@ -0,0 +1,32 @@
+package io.grpc.quarkus;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+
+import io.vertx.ext.web.Router;
+
+/**
+ * Lists the constants of the enum generated from {@code devmode.proto}. The class is looked up on every request, as
+ * it's only generated once the dev mode application runs.
+ */
+@ApplicationScoped
+public class DevModeStatusRoute {
+
+    static final String GENERATED_ENUM = "io.grpc.quarkus.devmode.Status";
+
+    void init(@Observes Router router) {
+        router.get("/status").handler(rc -> {
+            try {
+                Class<?> status = Class.forName(GENERATED_ENUM);
+                rc.response().end(Arrays.stream(status.getEnumConstants())
+                        .map(Object::toString)
+                        .collect(Collectors.joining(",")));
+            } catch (ClassNotFoundException e) {
+                rc.response().setStatusCode(404).end(GENERATED_ENUM + " has not been generated");
+            }
+        });
+    }
+}
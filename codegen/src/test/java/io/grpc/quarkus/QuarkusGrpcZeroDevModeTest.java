@@ -1,24 +1,93 @@
 package io.grpc.quarkus;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.function.Predicate;
+
 import org.jboss.shrinkwrap.api.ShrinkWrap;
 import org.jboss.shrinkwrap.api.spec.JavaArchive;
-import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 
+import io.quarkiverse.grpc.codegen.GrpcZeroCodeGen;
 import io.quarkus.test.QuarkusDevModeTest;
+import io.quarkus.test.common.http.TestHTTPResource;
 
+/**
+ * Edits a proto of a running dev mode application and measures how long it takes for the change to be visible, which
+ * covers the code generation, the compilation and the restart.
+ */
 public class QuarkusGrpcZeroDevModeTest {
 
-    // Start hot reload (DevMode) test with your extension loaded
+    private static final Duration MAX_RELOAD = Duration.ofSeconds(30);
+
     @RegisterExtension
     static final QuarkusDevModeTest devModeTest = new QuarkusDevModeTest()
-            .setArchiveProducer(() -> ShrinkWrap.create(JavaArchive.class));
+            .setArchiveProducer(() -> ShrinkWrap.create(JavaArchive.class)
+                    .addClasses(DevModeStatusRoute.class))
+            .setCodeGenSources("proto")
+            .setLogRecordPredicate(record -> GrpcZeroCodeGen.class.getName().equals(record.getLoggerName()));
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @TestHTTPResource("status")
+    URL status;
 
     @Test
-    public void writeYourOwnDevModeTest() {
-        // Write your dev mode tests here - see the testing extension guide
-        // https://quarkus.io/guides/writing-extensions#testing-hot-reload for more information
-        Assertions.assertTrue(true, "Add dev mode assertions to " + getClass().getName());
+    public void protoEditIsReloaded() throws Exception {
+        assertEquals("UNKNOWN,TEST_ONE,UNRECOGNIZED", awaitStatus(s -> s.contains("TEST_ONE")));
+
+        // the first change may run a full generation, when the state built at startup can't be reused
+        devModeTest.modifyFile("proto/devmode.proto",
+                text -> text.replace("TEST_ONE = 1;", "TEST_ONE = 1;\n  TEST_TWO = 2;"));
+        Duration first = timeReload("UNKNOWN,TEST_ONE,TEST_TWO,UNRECOGNIZED");
+
+        devModeTest.modifyFile("proto/devmode.proto",
+                text -> text.replace("TEST_TWO = 2;", "TEST_TWO = 2;\n  TEST_THREE = 3;"));
+        Duration second = timeReload("UNKNOWN,TEST_ONE,TEST_TWO,TEST_THREE,UNRECOGNIZED");
+
+        assertTrue(first.compareTo(MAX_RELOAD) < 0, "First reload took " + first.toMillis() + " ms");
+        assertTrue(second.compareTo(MAX_RELOAD) < 0, "Second reload took " + second.toMillis() + " ms");
+        // devmode_other.proto doesn't import the edited file, so it isn't generated again
+        assertTrue(devModeTest.getLogRecords().stream()
+                .anyMatch(record -> record.getMessage().equals("Grpc Zero: regenerating 1 of 2 proto files")),
+                "The edited proto alone should have been generated again");
+    }
+
+    private Duration timeReload(String expected) throws Exception {
+        long start = System.nanoTime();
+        assertEquals(expected, awaitStatus(expected::equals));
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+
+    /**
+     * Polls the status route, every request also gives dev mode the opportunity to reload the application.
+     */
+    private String awaitStatus(Predicate<String> condition) throws Exception {
+        long deadline = System.nanoTime() + MAX_RELOAD.toNanos();
+        String last = null;
+        while (System.nanoTime() < deadline) {
+            try {
+                HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(status.toString())).build(),
+                        HttpResponse.BodyHandlers.ofString());
+                last = response.body();
+                if (response.statusCode() == 200 && condition.test(last)) {
+                    return last;
+                }
+            } catch (IOException e) {
+                // the application is restarting
+                last = e.toString();
+            }
+            Thread.sleep(100);
+        }
+        return last;
     }
 }
@@ -0,0 +1,80 @@
+package io.quarkiverse.grpc.codegen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.quarkus.maven.dependency.ResolvedArtifactDependency;
+import io.quarkus.maven.dependency.ResolvedDependency;
+
+public class ArtifactIndexTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void remembersTheProtosOfEveryJar() throws Exception {
+        Path protos = jar("protos.jar", "com/example/a.proto", "META-INF/grpc-zero/descriptor-set.binpb",
+                "com/example/A.class");
+        Path classes = jar("classes.jar", "com/example/B.class");
+        Path indexFile = dir.resolve("index.txt");
+
+        GrpcZeroReport first = new GrpcZeroReport();
+        ArtifactIndex index = ArtifactIndex.load(indexFile);
+        assertEquals(List.of("META-INF/grpc-zero/descriptor-set.binpb", "com/example/a.proto"),
+                index.files(dependency(protos), first));
+        assertEquals(List.of(), index.files(dependency(classes), first));
+        assertNull(index.files(dependency(dir), first));
+        index.save();
+        assertTrue(first.toJson().contains("\"artifact-index\": { \"hits\": 0, \"misses\": 2"));
+
+        // touched but not modified, the checksum still matches
+        Files.setLastModifiedTime(classes, FileTime.fromMillis(Files.getLastModifiedTime(classes).toMillis() + 5000));
+        GrpcZeroReport second = new GrpcZeroReport();
+        ArtifactIndex reloaded = ArtifactIndex.load(indexFile);
+        assertEquals(List.of("META-INF/grpc-zero/descriptor-set.binpb", "com/example/a.proto"),
+                reloaded.files(dependency(protos), second));
+        assertEquals(List.of(), reloaded.files(dependency(classes), second));
+        assertTrue(second.toJson().contains("\"artifact-index\": { \"hits\": 2, \"misses\": 0"));
+
+        jar("classes.jar", "com/example/B.class", "com/example/b.proto");
+        assertEquals(List.of("com/example/b.proto"), reloaded.files(dependency(classes), second));
+    }
+
+    @Test
+    public void ignoresAnUnreadableIndex() throws Exception {
+        Path indexFile = dir.resolve("index.txt");
+        Files.writeString(indexFile, "# grpc-zero artifact index v1\n/some.jar\tnot-a-size\t0\tcafe\n");
+        Path classes = jar("classes.jar", "com/example/B.class");
+        assertEquals(List.of(), ArtifactIndex.load(indexFile).files(dependency(classes), new GrpcZeroReport()));
+    }
+
+    private static ResolvedDependency dependency(Path path) {
+        return new ResolvedArtifactDependency("com.example", path.getFileName().toString(), null, "jar", "1.0", path);
+    }
+
+    private Path jar(String name, String... entries) throws IOException {
+        Path jar = dir.resolve(name);
+        try (OutputStream out = Files.newOutputStream(jar); ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (String entry : entries) {
+                zip.putNextEntry(new ZipEntry(entry));
+                zip.write(entry.getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return jar;
+    }
+}
@@ -0,0 +1,145 @@
+package io.quarkiverse.grpc.codegen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.dylibso.chicory.wasi.WasiOptions;
+
+public class CodegenEngineTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void waitsForAnInstanceSlot() throws Exception {
+        CodegenEngine engine = new CodegenEngine(2, 1000, 100);
+        CodegenEngine.Lease first = engine.acquire();
+        CodegenEngine.Lease second = engine.acquire();
+
+        CompletableFuture<CodegenEngine.Lease> third = acquireAsync(engine);
+        Thread.sleep(200);
+        assertFalse(third.isDone());
+
+        first.close();
+        third.get(5, TimeUnit.SECONDS).close();
+        second.close();
+        assertEquals(2, engine.availableInstances());
+        assertEquals(1000, engine.availablePages());
+    }
+
+    @Test
+    public void waitsForTheMemoryBudget() throws Exception {
+        CodegenEngine engine = new CodegenEngine(8, 250, 100);
+        CodegenEngine.Lease first = engine.acquire();
+        CodegenEngine.Lease second = engine.acquire();
+        assertEquals(50, engine.availablePages());
+
+        CompletableFuture<CodegenEngine.Lease> third = acquireAsync(engine);
+        Thread.sleep(200);
+        assertFalse(third.isDone());
+
+        second.close();
+        third.get(5, TimeUnit.SECONDS).close();
+        first.close();
+        assertEquals(250, engine.availablePages());
+    }
+
+    @Test
+    public void instanceMemoryNeverExceedsTheBudget() throws Exception {
+        CodegenEngine engine = new CodegenEngine(2, 50, 100);
+        try (CodegenEngine.Lease lease = engine.acquire()) {
+            assertEquals(0, engine.availablePages());
+            // closing twice must not release the reservation twice
+            lease.close();
+        }
+        assertEquals(50, engine.availablePages());
+        assertEquals(2, engine.availableInstances());
+    }
+
+    @Test
+    public void residentInstancesLeaveRoomForARegularRun() throws Exception {
+        CodegenEngine engine = new CodegenEngine(3, 1000, 100);
+        CodegenEngine.Lease first = engine.tryAcquireResident();
+        CodegenEngine.Lease second = engine.tryAcquireResident();
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNull(engine.tryAcquireResident());
+        engine.acquire().close();
+        first.close();
+        second.close();
+
+        assertNull(new CodegenEngine(1, 1000, 100).tryAcquireResident());
+        assertNull(new CodegenEngine(4, 150, 100).tryAcquireResident());
+        assertEquals(3, engine.availableInstances());
+        assertEquals(1000, engine.availablePages());
+    }
+
+    @Test
+    public void guestMemoryGrowsWithinTheLease() throws Exception {
+        StringBuilder proto = new StringBuilder("syntax = \"proto3\";\npackage large;\n");
+        for (int i = 0; i < 500; i++) {
+            proto.append("message Message").append(i).append(" {\n");
+            for (int field = 1; field <= 20; field++) {
+                proto.append("  string field").append(field).append(" = ").append(field).append(";\n");
+            }
+            proto.append("}\n");
+        }
+        Files.writeString(dir.resolve("large.proto"), proto);
+        // the memory is imported, whatever the thread model protoc-wrapper was built with
+        int initialPages = Math.max(10, CodegenEngine.importedMemory(ProtocWrapper.load()).initialPages());
+
+        GrpcZeroReport report = new GrpcZeroReport();
+        new CodegenEngine(1, 4096, 4096).run(descriptors(), "descriptors", 0, () -> 0, report);
+        assertTrue(report.peakMemoryPages() > initialPages,
+                "memory didn't grow past " + initialPages + " pages: " + report.peakMemoryPages());
+
+        // the same run in a memory that can't grow fails to allocate
+        CodegenEngine capped = new CodegenEngine(1, initialPages, initialPages);
+        assertThrows(RuntimeException.class,
+                () -> capped.run(descriptors(), "descriptors", 0, () -> 0, new GrpcZeroReport()));
+    }
+
+    private WasiOptions descriptors() {
+        return WasiOptions.builder()
+                .withStdout(new ByteArrayOutputStream())
+                .withStderr(new ByteArrayOutputStream())
+                .withArguments(List.of("protoc-wrapper", "descriptors", "large.proto"))
+                // the workdir of the code generation, see GrpcZeroCodeGen.getDescriptor
+                .withDirectory(".", dir)
+                .build();
+    }
+
+    private CompletableFuture<CodegenEngine.Lease> acquireAsync(CodegenEngine engine) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return engine.acquire();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }, executor);
+    }
+}
@@ -0,0 +1,154 @@
+package io.quarkiverse.grpc.codegen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.quarkus.bootstrap.model.ApplicationModel;
+import io.quarkus.deployment.CodeGenContext;
+import io.quarkus.runtime.util.HashUtil;
+import io.smallrye.config.PropertiesConfigSource;
+import io.smallrye.config.SmallRyeConfig;
+import io.smallrye.config.SmallRyeConfigBuilder;
+
+public class DeterministicOutputTest {
+
+    private static final Map<String, String> PROTOS = Map.of(
+            "common/types.proto", """
+                    syntax = "proto3";
+                    package common;
+                    option java_package = "io.grpc.quarkus.deterministic.common";
+                    message Id { string value = 1; }
+                    enum Kind { KIND_UNKNOWN = 0; KIND_OTHER = 1; }
+                    """,
+            "orders/order.proto", """
+                    syntax = "proto3";
+                    package orders;
+                    import "common/types.proto";
+                    option java_package = "io.grpc.quarkus.deterministic.orders";
+                    option java_multiple_files = true;
+                    // An order
+                    message Order { common.Id id = 1; common.Kind kind = 2; }
+                    """,
+            "orders/service.proto", """
+                    syntax = "proto3";
+                    package orders;
+                    import "common/types.proto";
+                    import "orders/order.proto";
+                    option java_package = "io.grpc.quarkus.deterministic.orders";
+                    service Orders { rpc Get (common.Id) returns (Order); }
+                    """,
+            "billing.proto", """
+                    syntax = "proto3";
+                    package billing;
+                    import "orders/order.proto";
+                    option java_package = "io.grpc.quarkus.deterministic.billing";
+                    message Invoice { orders.Order order = 1; }
+                    service Billing { rpc Bill (orders.Order) returns (Invoice); }
+                    """);
+
+    @TempDir
+    Path dir;
+
+    /**
+     * A smoke test: the file system decides the order of the walk, not the order in which the files are created, see
+     * the tests below for the orders that are actually controlled.
+     */
+    @Test
+    public void shuffledInputsGenerateTheSameFiles() throws Exception {
+        Map<String, String> first = generate(dir.resolve("first"), new Random(1));
+        Map<String, String> second = generate(dir.resolve("second"), new Random(2));
+
+        assertTrue(first.containsKey("descriptor_set.dsc"));
+        assertTrue(first.keySet().stream().anyMatch(file -> file.endsWith("MutinyOrdersGrpc.java")));
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void sortsTheInputsWhateverTheWalkOrder() {
+        List<Path> walk = List.of(dir.resolve("b.proto"), dir.resolve("a/c.proto"), dir.resolve("notes.txt"),
+                dir.resolve("a.proto"));
+        List<String> sorted = List.of(dir.resolve("a.proto").toString(), dir.resolve("a/c.proto").toString(),
+                dir.resolve("b.proto").toString());
+        assertEquals(sorted, GrpcZeroCodeGen.protoFiles(walk.stream()));
+        assertEquals(sorted, GrpcZeroCodeGen.protoFiles(reversed(walk).stream()));
+    }
+
+    @Test
+    public void mergesTheArtifactsInModelOrderWhateverTheWalkOrder() {
+        List<Path> second = List.of(dir.resolve("second/b.proto"), dir.resolve("second/a.proto"));
+        List<Path> first = List.of(dir.resolve("z/y.proto"), dir.resolve("z/x.proto"), dir.resolve("z/a/w.proto"));
+        List<Path> expected = List.of(dir.resolve("z/a/w.proto"), dir.resolve("z/x.proto"), dir.resolve("z/y.proto"),
+                dir.resolve("second/a.proto"), dir.resolve("second/b.proto"));
+
+        Set<String> directories = new LinkedHashSet<>();
+        assertEquals(expected, GrpcZeroCodeGen.ExtractedProtos.merge(List.of(extracted(first), extracted(second)),
+                directories));
+        Set<String> reversedDirectories = new LinkedHashSet<>();
+        assertEquals(expected, GrpcZeroCodeGen.ExtractedProtos.merge(
+                List.of(extracted(reversed(first)), extracted(reversed(second))), reversedDirectories));
+        assertEquals(List.copyOf(directories), List.copyOf(reversedDirectories));
+    }
+
+    private static GrpcZeroCodeGen.ExtractedProtos extracted(List<Path> walk) {
+        GrpcZeroCodeGen.ExtractedProtos protos = new GrpcZeroCodeGen.ExtractedProtos();
+        for (Path file : walk) {
+            protos.files.add(file);
+            protos.directories.add(file.getParent().toString());
+        }
+        return protos;
+    }
+
+    private static <T> List<T> reversed(List<T> list) {
+        List<T> reversed = new ArrayList<>(list);
+        Collections.reverse(reversed);
+        return reversed;
+    }
+
+    /**
+     * @return the checksum of every generated file, by path relative to the output directory
+     */
+    private static Map<String, String> generate(Path project, Random random) throws Exception {
+        Path input = project.resolve("src/main/proto");
+        List<String> names = new ArrayList<>(PROTOS.keySet());
+        Collections.shuffle(names, random);
+        for (String name : names) {
+            Path file = input.resolve(name);
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, PROTOS.get(name));
+        }
+        Path outDir = Files.createDirectories(project.resolve("target/generated-sources/grpc"));
+        SmallRyeConfig config = new SmallRyeConfigBuilder()
+                .withSources(new PropertiesConfigSource(Map.of(
+                        "quarkus.generate-code.grpc.scan-for-imports", "none",
+                        "quarkus.generate-code.grpc.descriptor-set.generate", "true"), "test", 0))
+                .build();
+        ApplicationModel model = StandaloneModel.empty();
+        GrpcZeroCodeGen codeGen = new GrpcZeroCodeGen();
+        codeGen.init(model, Map.of());
+        assertTrue(codeGen.trigger(new CodeGenContext(model, outDir, project.resolve("target"), input, false, config,
+                false)));
+
+        Map<String, String> checksums = new TreeMap<>();
+        try (Stream<Path> files = Files.walk(outDir)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                checksums.put(outDir.relativize(file).toString(), HashUtil.sha1(Files.readAllBytes(file)));
+            }
+        }
+        return checksums;
+    }
+}
@@ -0,0 +1,96 @@
+package io.quarkiverse.grpc.codegen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.EnumDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileOptions;
+import com.google.protobuf.DescriptorProtos.ServiceDescriptorProto;
+import com.google.protobuf.compiler.PluginProtos;
+
+import io.quarkus.paths.PathTree;
+
+public class GeneratorSkipsTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void namesTheOuterClassLikeProtoc() {
+        assertEquals("HelloWorld", GeneratorSkips.outerClassName(file("api/hello_world.proto").build()));
+        assertEquals("V1Api2", GeneratorSkips.outerClassName(file("v1-api2.proto").build()));
+        assertEquals("GreeterOuterClass", GeneratorSkips.outerClassName(file("greeter.proto")
+                .addMessageType(DescriptorProto.newBuilder().setName("Greeter")).build()));
+        assertEquals("FooOuterClass", GeneratorSkips.outerClassName(file("foo.proto")
+                .addMessageType(DescriptorProto.newBuilder().setName("Bar")
+                        .addNestedType(DescriptorProto.newBuilder().setName("Foo")))
+                .build()));
+        assertEquals("StatusOuterClass", GeneratorSkips.outerClassName(file("status.proto")
+                .addMessageType(DescriptorProto.newBuilder().setName("Reply")
+                        .addNestedType(DescriptorProto.newBuilder().setName("Detail")
+                                .addEnumType(EnumDescriptorProto.newBuilder().setName("Status"))))
+                .build()));
+        assertEquals("Custom", GeneratorSkips.outerClassName(file("greeter.proto")
+                .setOptions(FileOptions.newBuilder().setJavaOuterClassname("Custom")).build()));
+    }
+
+    @Test
+    public void detectsCompiledClasses() throws Exception {
+        FileDescriptorProto greeter = file("greeter.proto")
+                .setPackage("greet")
+                .setOptions(FileOptions.newBuilder().setJavaPackage("com.example.greet").setJavaMultipleFiles(true))
+                .addMessageType(DescriptorProto.newBuilder().setName("Hello"))
+                .addService(ServiceDescriptorProto.newBuilder().setName("Greeter"))
+                .build();
+        Path classes = Files.createDirectories(dir.resolve("com/example/greet"));
+        Files.createFile(classes.resolve("GreeterOuterClass.class"));
+        Files.createFile(classes.resolve("Hello.class"));
+        PathTree tree = PathTree.ofDirectoryOrArchive(dir);
+        assertEquals(List.of(GeneratorSkips.JAVA), GeneratorSkips.compiledGenerators(greeter, tree));
+
+        Files.createFile(classes.resolve("GreeterGrpc.class"));
+        Files.createFile(classes.resolve("MutinyGreeterGrpc.class"));
+        assertEquals(List.of(GeneratorSkips.JAVA, GeneratorSkips.GRPC_JAVA, GeneratorSkips.MUTINY),
+                GeneratorSkips.compiledGenerators(greeter, tree));
+
+        GeneratorSkips skips = new GeneratorSkips();
+        skips.skip("greeter.proto", GeneratorSkips.compiledGenerators(greeter, tree));
+        assertTrue(skips.skipsEntirely(greeter, false));
+        assertFalse(skips.skipsEntirely(greeter, true));
+    }
+
+    @Test
+    public void leavesSkippedFilesOutOfTheRequest() {
+        GeneratorSkips skips = new GeneratorSkips();
+        skips.skip("a.proto", List.of(GeneratorSkips.JAVA));
+        PluginProtos.CodeGeneratorRequest request = PluginProtos.CodeGeneratorRequest.newBuilder()
+                .addFileToGenerate("a.proto")
+                .addFileToGenerate("b.proto")
+                .addProtoFile(file("a.proto"))
+                .addProtoFile(file("b.proto"))
+                .addSourceFileDescriptors(file("a.proto"))
+                .addSourceFileDescriptors(file("b.proto"))
+                .build();
+
+        PluginProtos.CodeGeneratorRequest java = skips.forGenerator(GeneratorSkips.JAVA, request);
+        assertEquals(List.of("b.proto"), java.getFileToGenerateList());
+        assertEquals(1, java.getSourceFileDescriptorsCount());
+        assertEquals(2, java.getProtoFileCount());
+        assertSame(request, skips.forGenerator(GeneratorSkips.GRPC_JAVA, request));
+    }
+
+    private static FileDescriptorProto.Builder file(String name) {
+        return FileDescriptorProto.newBuilder().setName(name);
+    }
+}
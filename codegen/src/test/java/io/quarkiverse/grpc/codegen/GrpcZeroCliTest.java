@@ -0,0 +1,72 @@
+package io.quarkiverse.grpc.codegen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class GrpcZeroCliTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void generatesEveryRoot() throws Exception {
+        Path orders = proto("orders", """
+                syntax = "proto3";
+                package orders;
+                import "google/protobuf/timestamp.proto";
+                option java_package = "io.grpc.quarkus.cli.orders";
+                message Order { google.protobuf.Timestamp created = 1; }
+                service Orders { rpc Get (Order) returns (Order); }
+                """);
+        Path billing = proto("billing", """
+                syntax = "proto3";
+                package billing;
+                option java_package = "io.grpc.quarkus.cli.billing";
+                message Invoice { string id = 1; }
+                """);
+        Path ordersOut = dir.resolve("out/orders");
+        Path billingOut = dir.resolve("out/billing");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int status = GrpcZeroCli.run(new String[] {
+                "--work-dir", dir.resolve("work").toString(),
+                "--threads", "2",
+                orders + "=" + ordersOut,
+                billing + "=" + billingOut },
+                new PrintStream(out, true, StandardCharsets.UTF_8), System.err);
+
+        assertEquals(GrpcZeroCli.OK, status);
+        assertTrue(Files.exists(ordersOut.resolve("io/grpc/quarkus/cli/orders/MutinyOrdersGrpc.java")));
+        assertTrue(Files.exists(billingOut.resolve("io/grpc/quarkus/cli/billing/Billing.java")));
+        assertEquals(2, out.toString(StandardCharsets.UTF_8).lines().count());
+    }
+
+    @Test
+    public void rejectsInvalidArguments() {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        PrintStream errStream = new PrintStream(err, true, StandardCharsets.UTF_8);
+
+        assertEquals(GrpcZeroCli.USAGE, GrpcZeroCli.run(new String[0], System.out, errStream));
+        assertEquals(GrpcZeroCli.USAGE, GrpcZeroCli.run(new String[] { "--bogus" }, System.out, errStream));
+        assertEquals(GrpcZeroCli.USAGE, GrpcZeroCli.run(new String[] { "--threads" }, System.out, errStream));
+        assertEquals(GrpcZeroCli.USAGE,
+                GrpcZeroCli.run(new String[] { dir.resolve("missing") + "=" + dir.resolve("out") }, System.out,
+                        errStream));
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains("Usage:"));
+    }
+
+    private Path proto(String root, String content) throws Exception {
+        Path input = Files.createDirectories(dir.resolve(root));
+        Files.writeString(input.resolve(root + ".proto"), content);
+        return input;
+    }
+}
@@ -0,0 +1,94 @@
+package io.quarkiverse.grpc.codegen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class GrpcZeroReportTest {
+
+    @Test
+    public void reportsTheCostOfTheRun() {
+        GrpcZeroReport report = new GrpcZeroReport();
+        long start = System.nanoTime();
+        report.phase("scan", start);
+        report.phase("generate", start);
+        report.phase("scan", start);
+        report.descriptor("greeter.proto", start, 2, 512);
+        report.generator("java", start, 1, 1000);
+        report.generator("grpc", start, 1, 200);
+        report.generator("java", start, 2, 3096);
+        report.output(null, "a/Greeter.java", 4096);
+        report.wasmInstantiation(start, 120);
+        report.wasmInstantiation(start, 300);
+        report.cacheMiss("descriptors");
+        report.cacheHit("descriptors");
+        report.cacheHit("descriptors");
+        report.cacheHit("descriptors");
+        report.cacheMiss("artifact-index");
+
+        assertEquals(2, report.wasmInstantiations());
+        assertEquals(300, report.peakMemoryPages());
+        // the timings depend on the machine, the shape of the report doesn't
+        assertEquals("""
+                {
+                  "version": 1,
+                  "totalMillis": 0,
+                  "phases": {
+                    "scan": 0,
+                    "generate": 0
+                  },
+                  "protos": [
+                    { "name": "greeter.proto", "descriptorMillis": 0, "descriptorFiles": 2, "descriptorBytes": 512 }
+                  ],
+                  "generators": [
+                    { "name": "java", "millis": 0, "files": 3, "bytes": 4096 },
+                    { "name": "grpc", "millis": 0, "files": 1, "bytes": 200 }
+                  ],
+                  "files": [
+                    { "name": "a/Greeter.java", "bytes": 4096 }
+                  ],
+                  "wasm": { "instantiations": 2, "millis": 0, "peakMemoryPages": 300, "peakMemoryBytes": 19660800 },
+                  "caches": {
+                    "descriptors": { "hits": 3, "misses": 1, "hitRatio": 0.7500 },
+                    "artifact-index": { "hits": 0, "misses": 1, "hitRatio": 0.0000 }
+                  }
+                }
+                """, report.toJson().replaceAll("(\"\\w*[mM]illis\"|\"scan\"|\"generate\"): \\d+", "$1: 0"));
+    }
+
+    @Test
+    public void reportsAnEmptyRun() {
+        assertEquals("""
+                {
+                  "version": 1,
+                  "totalMillis": 0,
+                  "phases": {},
+                  "protos": [],
+                  "generators": [],
+                  "files": [],
+                  "wasm": { "instantiations": 0, "millis": 0, "peakMemoryPages": 0, "peakMemoryBytes": 0 },
+                  "caches": {}
+                }
+                """, new GrpcZeroReport().toJson().replaceAll("\"totalMillis\": \\d+", "\"totalMillis\": 0"));
+    }
+
+    @Test
+    public void reportsTheLargestFilesFirst() {
+        GrpcZeroReport report = new GrpcZeroReport();
+        report.output(null, "a/Small.java", 10);
+        report.output(null, "a/Large.java", 3000);
+        report.output(null, "a/Medium.java", 200);
+
+        assertTrue(report.toJson().contains("""
+                  "files": [
+                    { "name": "a/Large.java", "bytes": 3000 },
+                    { "name": "a/Medium.java", "bytes": 200 },
+                    { "name": "a/Small.java", "bytes": 10 }
+                  ],
+                """));
+        assertEquals(List.of("a/Large.java", "a/Medium.java"), report.outputsLargerThan(100));
+    }
+}
@@ -0,0 +1,68 @@
+package io.quarkiverse.grpc.codegen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.quarkus.maven.dependency.ResolvedArtifactDependency;
+import io.quarkus.maven.dependency.ResolvedDependency;
+
+public class ImportIndexTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void parsesImports() throws Exception {
+        Path proto = Files.writeString(dir.resolve("a.proto"), """
+                syntax = "proto3";
+                // import "commented.proto";
+                import "b.proto";
+                import public "c/d.proto";
+                /* import "also/commented.proto"; */
+                import weak
+                    "e.proto";
+                option java_package = "http://not.an/import.proto";
+                """);
+        assertEquals(List.of("b.proto", "c/d.proto", "e.proto"), ImportIndex.imports(proto));
+    }
+
+    @Test
+    public void extractsOnlyWhatIsImported() throws Exception {
+        Path jar = dir.resolve("protos.jar");
+        try (OutputStream out = Files.newOutputStream(jar); ZipOutputStream zip = new ZipOutputStream(out)) {
+            entry(zip, "lib/used.proto", "syntax = \"proto3\";\nimport \"lib/transitive.proto\";\n");
+            entry(zip, "lib/transitive.proto", "syntax = \"proto3\";\n");
+            entry(zip, "lib/unused.proto", "syntax = \"proto3\";\n");
+        }
+        ResolvedDependency artifact = new ResolvedArtifactDependency("com.example", "protos", null, "jar", "1.0", jar);
+        ImportIndex index = new ImportIndex(dir.resolve("extracted"));
+        index.add(artifact, "lib/used.proto");
+        index.add(artifact, "lib/transitive.proto");
+        index.add(artifact, "lib/unused.proto");
+
+        Path source = Files.writeString(dir.resolve("service.proto"),
+                "syntax = \"proto3\";\nimport \"lib/used.proto\";\nimport \"google/protobuf/empty.proto\";\n");
+        Map<String, Path> resolved = index.resolve(Map.of("service.proto", source));
+
+        assertEquals(List.of("lib/used.proto", "lib/transitive.proto"), List.copyOf(resolved.keySet()));
+        assertEquals("syntax = \"proto3\";\n", Files.readString(resolved.get("lib/transitive.proto")));
+        assertEquals(resolved, index.resolve(Map.of("service.proto", source)));
+    }
+
+    private static void entry(ZipOutputStream zip, String name, String content) throws Exception {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+}
@@ -0,0 +1,48 @@
+package io.quarkiverse.grpc.codegen;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class IncrementalStateTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void closesTheStateWhenTheInputsChange() {
+        IncrementalState state = IncrementalState.forOutDir(dir);
+        try {
+            state.dependencyScan("first", null);
+            FileSystem first = state.fileSystem();
+            state.dependencyScan("first", null);
+            assertSame(first, state.fileSystem());
+
+            state.dependencyScan("second", null);
+            assertFalse(first.isOpen());
+            assertTrue(state.fileSystem().isOpen());
+        } finally {
+            IncrementalState.drop(dir);
+        }
+    }
+
+    @Test
+    public void closesTheStateWhenDropped() {
+        IncrementalState state = IncrementalState.forOutDir(dir);
+        assertSame(state, IncrementalState.forOutDir(dir.resolve("../" + dir.getFileName())));
+        FileSystem fileSystem = state.fileSystem();
+
+        IncrementalState.drop(dir);
+        assertFalse(fileSystem.isOpen());
+        IncrementalState next = IncrementalState.forOutDir(dir);
+        assertNotSame(state, next);
+        IncrementalState.drop(dir);
+    }
+}
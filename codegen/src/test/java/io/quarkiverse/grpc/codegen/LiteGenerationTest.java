@@ -0,0 +1,75 @@
+package io.quarkiverse.grpc.codegen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.protobuf.compiler.PluginProtos;
+
+import io.quarkus.bootstrap.model.ApplicationModel;
+import io.quarkus.deployment.CodeGenContext;
+import io.smallrye.config.PropertiesConfigSource;
+import io.smallrye.config.SmallRyeConfig;
+import io.smallrye.config.SmallRyeConfigBuilder;
+
+public class LiteGenerationTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void generatesForTheLiteRuntime() throws Exception {
+        Path input = Files.createDirectories(dir.resolve("src/main/proto"));
+        Files.writeString(input.resolve("greeter.proto"), """
+                syntax = "proto3";
+                package greet;
+                option java_package = "io.grpc.quarkus.lite";
+                message HelloRequest { string name = 1; }
+                message HelloReply { string message = 1; }
+                service Greeter { rpc SayHello (HelloRequest) returns (HelloReply); }
+                """);
+        Path outDir = Files.createDirectories(dir.resolve("target/generated-sources/grpc"));
+        SmallRyeConfig config = new SmallRyeConfigBuilder()
+                .withSources(new PropertiesConfigSource(Map.of(
+                        "quarkus.generate-code.grpc.scan-for-imports", "none",
+                        "quarkus.generate-code.grpc.lite", "true"), "test", 0))
+                .build();
+        ApplicationModel model = StandaloneModel.empty();
+        GrpcZeroCodeGen codeGen = new GrpcZeroCodeGen();
+        codeGen.init(model, Map.of());
+        assertTrue(codeGen.trigger(new CodeGenContext(model, outDir, dir.resolve("target"), input, false, config,
+                false)));
+
+        Path sources = outDir.resolve("io/grpc/quarkus/lite");
+        String messages = Files.readString(sources.resolve("GreeterOuterClass.java"));
+        assertTrue(messages.contains("GeneratedMessageLite"));
+        assertFalse(messages.contains("getDescriptor()"));
+        String grpc = Files.readString(sources.resolve("GreeterGrpc.java"));
+        assertTrue(grpc.contains("ProtoLiteUtils"));
+        assertFalse(grpc.contains("io.grpc.protobuf.ProtoUtils"));
+        assertTrue(Files.exists(sources.resolve("MutinyGreeterGrpc.java")));
+    }
+
+    @Test
+    public void movesMarshallersToTheLiteRuntime() {
+        var file = PluginProtos.CodeGeneratorResponse.File.newBuilder()
+                .setName("MutinyGreeterGrpc.java")
+                .setContent("io.grpc.protobuf.ProtoUtils.marshaller(HelloRequest.getDefaultInstance())")
+                .build();
+        assertEquals("io.grpc.protobuf.lite.ProtoLiteUtils.marshaller(HelloRequest.getDefaultInstance())",
+                GrpcZeroCodeGen.liteMarshallers(file).getContent());
+
+        var unchanged = file.toBuilder().setContent("GreeterGrpc.getSayHelloMethod()").build();
+        assertSame(unchanged, GrpcZeroCodeGen.liteMarshallers(unchanged));
+        assertEquals("lite", GrpcZeroCodeGen.liteRequest(PluginProtos.CodeGeneratorRequest.getDefaultInstance())
+                .getParameter());
+    }
+}
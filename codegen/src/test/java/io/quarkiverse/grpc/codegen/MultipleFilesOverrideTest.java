@@ -0,0 +1,55 @@
+package io.quarkiverse.grpc.codegen;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileOptions;
+import com.google.protobuf.compiler.PluginProtos;
+
+public class MultipleFilesOverrideTest {
+
+    @Test
+    public void selectsTheGeneratedProtosOfThePackages() {
+        MultipleFilesOverride override = new MultipleFilesOverride(List.of("com.example"),
+                List.of("api.proto", "nested.proto", "other.proto", "split.proto"));
+        assertTrue(override.applies(file("api.proto", "com.example", false)));
+        assertTrue(override.applies(file("nested.proto", "com.example.api", false)));
+        assertFalse(override.applies(file("other.proto", "com.examples", false)));
+        assertFalse(override.applies(file("split.proto", "com.example", true)));
+        // compiled with a dependency, its classes keep their names
+        assertFalse(override.applies(file("compiled.proto", "com.example", false)));
+    }
+
+    @Test
+    public void rewritesOnlyTheSelectedFiles() {
+        PluginProtos.CodeGeneratorRequest request = PluginProtos.CodeGeneratorRequest.newBuilder()
+                .addFileToGenerate("api.proto")
+                .addProtoFile(file("compiled.proto", "com.example", false))
+                .addProtoFile(file("api.proto", "com.example", false))
+                .addSourceFileDescriptors(file("api.proto", "com.example", false))
+                .build();
+
+        PluginProtos.CodeGeneratorRequest split = new MultipleFilesOverride(List.of("com.example"),
+                List.of("api.proto")).apply(request);
+        assertFalse(split.getProtoFile(0).getOptions().getJavaMultipleFiles());
+        assertTrue(split.getProtoFile(1).getOptions().getJavaMultipleFiles());
+        assertTrue(split.getSourceFileDescriptors(0).getOptions().getJavaMultipleFiles());
+
+        assertSame(request, new MultipleFilesOverride(List.of("other"), List.of("api.proto")).apply(request));
+        assertSame(request, new MultipleFilesOverride(List.of(), List.of("api.proto")).apply(request));
+    }
+
+    private static FileDescriptorProto file(String name, String protoPackage, boolean multipleFiles) {
+        return FileDescriptorProto.newBuilder()
+                .setName(name)
+                .setPackage(protoPackage)
+                .setOptions(FileOptions.newBuilder().setJavaMultipleFiles(multipleFiles))
+                .build();
+    }
+}
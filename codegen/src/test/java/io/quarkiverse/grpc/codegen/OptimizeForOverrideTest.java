@@ -0,0 +1,71 @@
+package io.quarkiverse.grpc.codegen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileOptions;
+import com.google.protobuf.DescriptorProtos.FileOptions.OptimizeMode;
+import com.google.protobuf.compiler.PluginProtos;
+
+import io.quarkus.maven.dependency.ResolvedArtifactDependency;
+
+public class OptimizeForOverrideTest {
+
+    private static final ResolvedArtifactDependency SHARED = new ResolvedArtifactDependency("com.example",
+            "shared-protos", "", "jar", "1.0", Path.of("shared-protos.jar"));
+
+    @Test
+    public void selectsCodeSizeProtosByPackageOrArtifact() {
+        OptimizeForOverride byPackage = new OptimizeForOverride(List.of(), List.of("com.example"), Map.of());
+        assertTrue(byPackage.applies(file("a.proto", "com.example", OptimizeMode.CODE_SIZE)));
+        assertTrue(byPackage.applies(file("a.proto", "com.example.api", OptimizeMode.CODE_SIZE)));
+        assertFalse(byPackage.applies(file("a.proto", "com.examples", OptimizeMode.CODE_SIZE)));
+        assertFalse(byPackage.applies(file("a.proto", "com.example", OptimizeMode.LITE_RUNTIME)));
+
+        OptimizeForOverride byArtifact = new OptimizeForOverride(List.of("com.example:shared-protos"), List.of(),
+                Map.of("shared.proto", SHARED));
+        assertTrue(byArtifact.applies(file("shared.proto", "shared", OptimizeMode.CODE_SIZE)));
+        assertFalse(byArtifact.applies(file("own.proto", "shared", OptimizeMode.CODE_SIZE)));
+        assertTrue(new OptimizeForOverride(List.of("all"), List.of(), Map.of("shared.proto", SHARED))
+                .applies(file("shared.proto", "shared", OptimizeMode.CODE_SIZE)));
+    }
+
+    @Test
+    public void rewritesOnlyTheSelectedFiles() {
+        PluginProtos.CodeGeneratorRequest request = PluginProtos.CodeGeneratorRequest.newBuilder()
+                .addFileToGenerate("api.proto")
+                .addFileToGenerate("other.proto")
+                .addProtoFile(file("api.proto", "api", OptimizeMode.CODE_SIZE))
+                .addProtoFile(file("other.proto", "other", OptimizeMode.CODE_SIZE))
+                .addSourceFileDescriptors(file("api.proto", "api", OptimizeMode.CODE_SIZE))
+                .addSourceFileDescriptors(file("other.proto", "other", OptimizeMode.CODE_SIZE))
+                .build();
+
+        PluginProtos.CodeGeneratorRequest speed = new OptimizeForOverride(List.of(), List.of("api"), Map.of())
+                .apply(request);
+        assertEquals(OptimizeMode.SPEED, speed.getProtoFile(0).getOptions().getOptimizeFor());
+        assertEquals(OptimizeMode.SPEED, speed.getSourceFileDescriptors(0).getOptions().getOptimizeFor());
+        assertEquals(OptimizeMode.CODE_SIZE, speed.getProtoFile(1).getOptions().getOptimizeFor());
+        assertEquals(OptimizeMode.CODE_SIZE, speed.getSourceFileDescriptors(1).getOptions().getOptimizeFor());
+
+        assertSame(request, new OptimizeForOverride(List.of(), List.of("none"), Map.of()).apply(request));
+        assertSame(request, new OptimizeForOverride(List.of(), List.of(), Map.of()).apply(request));
+    }
+
+    private static FileDescriptorProto file(String name, String protoPackage, OptimizeMode optimizeFor) {
+        return FileDescriptorProto.newBuilder()
+                .setName(name)
+                .setPackage(protoPackage)
+                .setOptions(FileOptions.newBuilder().setOptimizeFor(optimizeFor))
+                .build();
+    }
+}
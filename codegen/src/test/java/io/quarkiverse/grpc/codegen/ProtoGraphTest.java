@@ -0,0 +1,65 @@
+package io.quarkiverse.grpc.codegen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+public class ProtoGraphTest {
+
+    @Test
+    public void ordersFilesAfterTheirImports() {
+        ProtoGraph graph = new ProtoGraph();
+        graph.add("service.proto", List.of("messages.proto", "google/protobuf/empty.proto"));
+        graph.add("messages.proto", List.of("common.proto"));
+        graph.add("common.proto", List.of());
+        graph.add("google/protobuf/empty.proto", List.of());
+        graph.add("other.proto", List.of("common.proto"));
+
+        assertEquals(List.of("common.proto", "messages.proto", "google/protobuf/empty.proto", "service.proto"),
+                graph.topologicalOrder(List.of("service.proto")));
+        assertEquals(List.of("common.proto", "other.proto", "messages.proto", "google/protobuf/empty.proto",
+                "service.proto"), graph.topologicalOrder(List.of("other.proto", "service.proto")));
+    }
+
+    @Test
+    public void walksImportsAndImporters() {
+        ProtoGraph graph = new ProtoGraph();
+        graph.add("a.proto", List.of("b.proto"));
+        graph.add("b.proto", List.of("c.proto"));
+        graph.add("d.proto", List.of("c.proto"));
+
+        assertTrue(graph.contains("b.proto"));
+        assertFalse(graph.contains("c.proto"));
+        assertEquals(Set.of("c.proto", "b.proto", "d.proto", "a.proto"), graph.importersOf(List.of("c.proto")));
+        assertEquals(Set.of("b.proto", "a.proto"), graph.importersOf(List.of("b.proto")));
+        assertEquals(Set.of("a.proto", "b.proto", "c.proto"), graph.importsOf(List.of("a.proto")));
+        assertEquals(Set.of("unknown.proto"), graph.importersOf(List.of("unknown.proto")));
+        // only declared files are ordered
+        assertEquals(List.of("b.proto", "a.proto"), graph.topologicalOrder(List.of("a.proto")));
+    }
+
+    @Test
+    public void namesDependencyProtosAfterTheirExtractionDirectory() {
+        Path base = Path.of("build").toAbsolutePath();
+        Path extracted = base.resolve("target/protoc-protos-from-dependencies");
+        ProtoGraph.Roots roots = new ProtoGraph.Roots();
+        // the module's protos, the directory a jar was extracted to, then the directories of the jar's files
+        roots.add(base.resolve("src/main/proto").toString());
+        roots.add(extracted.toString());
+        roots.add(extracted.resolve("protobuf").toString());
+        roots.add(extracted.resolve("protobuf/nested").toString());
+
+        assertEquals("api/service.proto", roots.relativize(base.resolve("src/main/proto/api/service.proto").toString()));
+        assertEquals("protobuf/role.proto", roots.relativize(extracted.resolve("protobuf/role.proto").toString()));
+        assertEquals("protobuf/nested/user.proto",
+                roots.relativize(extracted.resolve("protobuf/nested/user.proto").toString()));
+        assertEquals("outside.proto", roots.relativize(base.resolve("elsewhere/outside.proto").toString()));
+        assertEquals("x.proto", roots.relativize(base.resolve("src/main/proto/../proto/x.proto").toString()));
+    }
+}
@@ -0,0 +1,161 @@
+package io.quarkiverse.grpc.codegen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.protobuf.DescriptorProtos.DescriptorProto;
+import com.google.protobuf.DescriptorProtos.EnumDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
+import com.google.protobuf.DescriptorProtos.FileDescriptorProto;
+import com.google.protobuf.DescriptorProtos.MethodDescriptorProto;
+import com.google.protobuf.DescriptorProtos.ServiceDescriptorProto;
+
+import io.quarkus.bootstrap.model.ApplicationModel;
+import io.quarkus.deployment.CodeGenContext;
+import io.smallrye.config.PropertiesConfigSource;
+import io.smallrye.config.SmallRyeConfig;
+import io.smallrye.config.SmallRyeConfigBuilder;
+
+public class ProtoPruningTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void keepsTheFilesWhoseTypesAreUsed() {
+        FileDescriptorProto service = FileDescriptorProto.newBuilder()
+                .setName("service.proto")
+                .setPackage("app")
+                .addDependency("lib/request.proto")
+                .addDependency("lib/unused.proto")
+                .addService(ServiceDescriptorProto.newBuilder().setName("Greeter")
+                        .addMethod(MethodDescriptorProto.newBuilder().setName("Greet")
+                                .setInputType(".lib.Request").setOutputType(".app.Reply")))
+                .addMessageType(DescriptorProto.newBuilder().setName("Reply")
+                        .addNestedType(DescriptorProto.newBuilder().setName("Detail")
+                                .addField(field(".lib.Status"))))
+                .build();
+        FileDescriptorProto request = FileDescriptorProto.newBuilder()
+                .setName("lib/request.proto")
+                .setPackage("lib")
+                .addDependency("lib/common.proto")
+                .addMessageType(DescriptorProto.newBuilder().setName("Request").addField(field(".lib.Common.Kind")))
+                .build();
+        FileDescriptorProto status = FileDescriptorProto.newBuilder()
+                .setName("lib/status.proto")
+                .setPackage("lib")
+                .addEnumType(EnumDescriptorProto.newBuilder().setName("Status"))
+                .build();
+        FileDescriptorProto common = FileDescriptorProto.newBuilder()
+                .setName("lib/common.proto")
+                .setPackage("lib")
+                .addMessageType(DescriptorProto.newBuilder().setName("Common")
+                        .addEnumType(EnumDescriptorProto.newBuilder().setName("Kind")))
+                .build();
+        FileDescriptorProto unused = FileDescriptorProto.newBuilder()
+                .setName("lib/unused.proto")
+                .setPackage("lib")
+                .addMessageType(DescriptorProto.newBuilder().setName("Unused").addField(field(".lib.Request")))
+                .build();
+
+        assertEquals(Set.of("service.proto", "lib/request.proto", "lib/status.proto", "lib/common.proto"),
+                ProtoPruning.reachableFiles(List.of(service, request, status, common, unused), List.of("service.proto")));
+        assertEquals(Set.of("lib/unused.proto", "lib/request.proto", "lib/common.proto"),
+                ProtoPruning.reachableFiles(List.of(service, request, status, common, unused),
+                        List.of("lib/unused.proto")));
+    }
+
+    @Test
+    public void followsExtensions() {
+        FileDescriptorProto extending = FileDescriptorProto.newBuilder()
+                .setName("extending.proto")
+                .addExtension(field(".lib.Options").toBuilder().setExtendee(".lib.Extendable"))
+                .build();
+        FileDescriptorProto extendable = FileDescriptorProto.newBuilder()
+                .setName("lib/extendable.proto")
+                .setPackage("lib")
+                .addMessageType(DescriptorProto.newBuilder().setName("Extendable"))
+                .build();
+        assertEquals(Set.of("extending.proto", "lib/extendable.proto"),
+                ProtoPruning.reachableFiles(List.of(extending, extendable), List.of("extending.proto")));
+    }
+
+    @Test
+    public void generatesTheDependencyProtosThatAreUsed() throws Exception {
+        Path jar = dir.resolve("common-protos.jar");
+        try (OutputStream out = Files.newOutputStream(jar); ZipOutputStream zip = new ZipOutputStream(out)) {
+            entry(zip, "common/money.proto", """
+                    syntax = "proto3";
+                    package common;
+                    option java_package = "com.example.common";
+                    option java_outer_classname = "MoneyProto";
+                    import "common/currency.proto";
+                    message Money { Currency currency = 1; int64 units = 2; }
+                    """);
+            entry(zip, "common/currency.proto", """
+                    syntax = "proto3";
+                    package common;
+                    option java_package = "com.example.common";
+                    option java_outer_classname = "CurrencyProto";
+                    enum Currency { CURRENCY_UNSPECIFIED = 0; EUR = 1; }
+                    """);
+            entry(zip, "common/unused.proto", """
+                    syntax = "proto3";
+                    package common;
+                    option java_package = "com.example.common";
+                    option java_outer_classname = "UnusedProto";
+                    message Unused { string name = 1; }
+                    """);
+        }
+        Path input = Files.createDirectories(dir.resolve("src/main/proto"));
+        Files.writeString(input.resolve("order.proto"), """
+                syntax = "proto3";
+                package orders;
+                option java_package = "com.example.orders";
+                import "common/money.proto";
+                message Order { common.Money total = 1; }
+                """);
+        Path outDir = Files.createDirectories(dir.resolve("target/generated-sources/grpc"));
+        SmallRyeConfig config = new SmallRyeConfigBuilder()
+                .withSources(new PropertiesConfigSource(Map.of(
+                        "quarkus.generate-code.grpc.scan-for-proto", "com.example:common-protos",
+                        "quarkus.generate-code.grpc.scan-for-imports", "none",
+                        "quarkus.generate-code.grpc.prune.enabled", "true"), "test", 0))
+                .build();
+        ApplicationModel model = StandaloneModel.of(List.of(StandaloneModel.dependency("com.example", "common-protos", jar)));
+        GrpcZeroCodeGen codeGen = new GrpcZeroCodeGen();
+        codeGen.init(model, Map.of());
+        assertTrue(codeGen.trigger(new CodeGenContext(model, outDir, dir.resolve("target"), input, false, config,
+                false)));
+
+        Path common = outDir.resolve("com/example/common");
+        assertTrue(Files.exists(common.resolve("MoneyProto.java")));
+        // only imported by an import
+        assertTrue(Files.exists(common.resolve("CurrencyProto.java")));
+        assertFalse(Files.exists(common.resolve("UnusedProto.java")));
+    }
+
+    private static void entry(ZipOutputStream zip, String name, String content) throws Exception {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    private static FieldDescriptorProto field(String typeName) {
+        return FieldDescriptorProto.newBuilder().setName("field").setNumber(1).setTypeName(typeName).build();
+    }
+}
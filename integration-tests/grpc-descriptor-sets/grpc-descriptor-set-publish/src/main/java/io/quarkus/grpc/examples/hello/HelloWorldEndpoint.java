@@ -0,0 +1,41 @@
+package io.quarkus.grpc.examples.hello;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+
+import examples.GreeterGrpc;
+import examples.HelloReply;
+import examples.HelloRequest;
+import examples.MutinyGreeterGrpc;
+import io.quarkus.grpc.GrpcClient;
+import io.smallrye.mutiny.Uni;
+
+@Path("/hello")
+public class HelloWorldEndpoint {
+
+    @GrpcClient("hello")
+    GreeterGrpc.GreeterBlockingStub blockingHelloService;
+
+    @GrpcClient("hello")
+    MutinyGreeterGrpc.MutinyGreeterStub mutinyHelloService;
+
+    @GET
+    @Path("/blocking/{name}")
+    public String helloBlocking(@PathParam("name") String name) {
+        HelloReply reply = blockingHelloService.sayHello(HelloRequest.newBuilder().setName(name).build());
+        return generateResponse(reply);
+
+    }
+
+    @GET
+    @Path("/mutiny/{name}")
+    public Uni<String> helloMutiny(@PathParam("name") String name) {
+        return mutinyHelloService.sayHello(HelloRequest.newBuilder().setName(name).build())
+                .onItem().transform((reply) -> generateResponse(reply));
+    }
+
+    public String generateResponse(HelloReply reply) {
+        return String.format("%s! HelloWorldService has been called %d number of times.", reply.getMessage(), reply.getCount());
+    }
+}
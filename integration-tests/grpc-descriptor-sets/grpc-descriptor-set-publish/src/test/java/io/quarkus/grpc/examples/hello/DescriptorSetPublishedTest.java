@@ -0,0 +1,33 @@
+package io.quarkus.grpc.examples.hello;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.protobuf.DescriptorProtos;
+
+public class DescriptorSetPublishedTest {
+
+    @Test
+    public void descriptorSetPublished() throws Exception {
+        var bundle = Path.of(System.getProperty("build.dir"))
+                .resolve("classes")
+                .resolve("META-INF")
+                .resolve("grpc-zero")
+                .resolve("descriptor-set.binpb");
+
+        assertThat(bundle)
+                .exists()
+                .isNotEmptyFile();
+
+        var descriptorSet = DescriptorProtos.FileDescriptorSet.parseFrom(Files.readAllBytes(bundle));
+        assertThat(descriptorSet.getFileList())
+                .extracting(DescriptorProtos.FileDescriptorProto::getName)
+                .contains("helloworld.proto");
+        assertThat(descriptorSet.getFileList())
+                .noneMatch(DescriptorProtos.FileDescriptorProto::hasSourceCodeInfo);
+    }
+}